@@ -1,11 +1,19 @@
 package io.maestro3.job.engine;
 
+import io.maestro3.job.engine.codec.IJobDataCodec;
+import io.maestro3.job.engine.codec.JsonJobDataCodec;
 import io.maestro3.job.engine.exception.JobExecutionException;
 import io.maestro3.job.engine.exception.JobPostponeException;
+import io.maestro3.job.engine.limit.IConcurrencyLimit;
 import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.IJobDefinition;
 import io.maestro3.job.engine.model.JobStatus;
 import io.maestro3.job.engine.model.UpdateJobDataOnError;
 import io.maestro3.job.engine.model.UpdateJobDataOnSuccess;
+import io.maestro3.job.engine.retry.IRetryPolicy;
+import io.maestro3.job.engine.scheduling.ClaimPlan;
+import io.maestro3.job.engine.scheduling.ISchedulingPolicy;
+import io.maestro3.job.engine.scheduling.StrictPriorityPolicy;
 import io.maestro3.job.engine.tracker.IJobTrackerManager;
 import io.maestro3.job.engine.util.ExceptionUtils;
 import io.maestro3.job.engine.util.JsonUtils;
@@ -14,7 +22,11 @@ import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -32,6 +44,9 @@ public abstract class AbstractJobManager<P extends IJobProcessor<?>, O> implemen
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractJobManager.class);
 
+    // max time shutdown waits for running jobs before write-behind is flushed
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
     protected final IDbJobService<O> jobService;
     protected final Set<String> jobTypes;
     protected final Map<String, IJobProcessor<?>> jobProcessors;
@@ -40,10 +55,26 @@ public abstract class AbstractJobManager<P extends IJobProcessor<?>, O> implemen
     protected final int postponeMinutes;
     protected final int jobsLifeTimeDays;
     protected final boolean usePrioritySort;
+    private final ISchedulingPolicy schedulingPolicy;
+    protected final String nodeId;
 
     private final IJobExecutionApprover executionApprover;
     private final IJobTrackerManager<O> trackerManager;
     private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final JobReadyQueue<O> readyQueue;
+    private final JobDispatcher dispatcher;
+    private final JobTypeConcurrencyLimits typeLimits;
+    private final JobWriteBehind<O> writeBehind;
+    private final Set<JobStatus> synchronouslySavedStatuses;
+    private final JobLeaseKeeper<O> leaseKeeper;
+    private final JobPartitionAssignment partitionAssignment;
+    private final JobTimingWheel timingWheel;
+    private final JobPurger<O> purger;
+    private final IConcurrencyLimit concurrencyLimit;
+    private final Map<String, IJobDataCodec<?>> dataCodecs;
+    private final Map<String, IRetryPolicy> retryPolicies = new HashMap<>();
+    // slots reserved before claim, released when job finishes or cannot be run
     private final AtomicInteger runningJobs = new AtomicInteger();
 
     protected AbstractJobManager(IDbJobService<O> jobService,
@@ -55,23 +86,172 @@ public abstract class AbstractJobManager<P extends IJobProcessor<?>, O> implemen
                 .collect(Collectors.toSet());
         this.jobProcessors = jobProcessors.stream()
                 .collect(Collectors.toMap(jobProcessor -> jobProcessor.getJobDefinition().getProcessorType(), jobProcessor -> jobProcessor));
+        this.dataCodecs = jobProcessors.stream()
+                .collect(Collectors.toMap(jobProcessor -> jobProcessor.getJobDefinition().getProcessorType(),
+                        jobProcessor -> getDataCodec(jobProcessor.getJobDefinition())));
+        for (final P jobProcessor : jobProcessors) {
+            final IRetryPolicy retryPolicy = jobProcessor.getJobDefinition().getRetryPolicy();
+            if (retryPolicy != null) {
+                retryPolicies.put(jobProcessor.getJobDefinition().getProcessorType(), retryPolicy);
+            }
+        }
         this.maxConcurrentTasks = configuration.getMaxConcurrentTasks();
         this.postponeCount = configuration.getPostponeCount();
         this.postponeMinutes = configuration.getPostponeMinutes();
         this.jobsLifeTimeDays = configuration.getJobsLifeTimeDays();
         this.usePrioritySort = configuration.usePrioritySort();
+        this.nodeId = configuration.getNodeId();
         this.executionApprover = configuration.getExecutionApprover();
         this.trackerManager = configuration.getTrackerManager();
+        this.schedulingPolicy = Optional.ofNullable(configuration.getSchedulingPolicy())
+                .orElseGet(() -> new StrictPriorityPolicy(usePrioritySort));
+
+        this.typeLimits = new JobTypeConcurrencyLimits(getTypeConcurrencyLimits(jobProcessors, configuration),
+                configuration.getTypeAdaptiveConcurrencyLimits(), jobTypes);
+        this.concurrencyLimit = configuration.getAdaptiveConcurrencyLimit();
+        if (trackerManager != null) {
+            if (concurrencyLimit != null) {
+                trackerManager.onConcurrencyLimitChanged(null, concurrencyLimit.getLimit());
+            }
+            configuration.getTypeAdaptiveConcurrencyLimits()
+                    .forEach((jobType, limit) -> trackerManager.onConcurrencyLimitChanged(jobType, limit.getLimit()));
+        }
 
+        ownsExecutor = configuration.getExecutor() == null;
         executor = Optional.ofNullable(configuration.getExecutor())
                 .orElseGet(() -> new ThreadPoolExecutor(1, maxConcurrentTasks, 60L, TimeUnit.SECONDS,
                 new SynchronousQueue<>(), configuration.getThreadFactory()));
+
+        synchronouslySavedStatuses = configuration.getSynchronouslySavedStatuses();
+        if (configuration.useWriteBehind()) {
+            writeBehind = new JobWriteBehind<>(jobService, configuration.getWriteBehindBatchSize(),
+                    configuration.getWriteBehindFlushMillis(), this::onJobReleased);
+            writeBehind.start();
+        } else {
+            writeBehind = null;
+        }
+
+        if (configuration.useProcessingLease()) {
+            leaseKeeper = new JobLeaseKeeper<>(jobService, nodeId, configuration.getLeaseDurationMillis());
+            leaseKeeper.start();
+        } else {
+            leaseKeeper = null;
+        }
+
+        if (configuration.usePartitioning()) {
+            partitionAssignment = new JobPartitionAssignment(nodeId, configuration.getPartitionCount(),
+                    configuration.getMembership());
+            partitionAssignment.start();
+        } else {
+            partitionAssignment = null;
+        }
+
+        if (configuration.useTimingWheel()) {
+            timingWheel = new JobTimingWheel(configuration.getTimingWheelTickMillis(), this::onJobsDue);
+            timingWheel.start();
+        } else {
+            timingWheel = null;
+        }
+
+        if (configuration.useChunkedPurge()) {
+            purger = new JobPurger<>(jobService, jobsLifeTimeDays, configuration.getPurgeChunkSize(),
+                    configuration.getPurgeMaxJobsPerSecond(), configuration.getPurgeTimeBudgetMillis(),
+                    configuration.getPurgeArchiveDirectory());
+        } else {
+            purger = null;
+        }
+
+        dispatcher = new JobDispatcher(this::executePendingJobs, this::hasFreeSlots,
+                configuration.getPollBackoffInitialMillis(), configuration.getPollBackoffMaxMillis());
+
+        if (configuration.useReadyQueue()) {
+            readyQueue = new JobReadyQueue<>(configuration.getReadyQueueCapacity(),
+                    configuration.getReadyQueueLowWatermark(), configuration.getPrefetchIdleMillis(),
+                    this::prefetchJobs, this::releaseJobs, dispatcher::wakeUp);
+            readyQueue.start();
+        } else {
+            readyQueue = null;
+        }
+    }
+
+    private static <D> IJobDataCodec<D> getDataCodec(IJobDefinition<D> jobDefinition) {
+        return Optional.ofNullable(jobDefinition.getDataCodec())
+                .orElseGet(() -> new JsonJobDataCodec<>(jobDefinition.getClassReference()));
+    }
+
+    private static Map<String, Integer> getTypeConcurrencyLimits(List<? extends IJobProcessor<?>> jobProcessors,
+                                                                 JobManagerConfiguration<?> configuration) {
+        final Map<String, Integer> limits = new HashMap<>();
+        for (final IJobProcessor<?> jobProcessor : jobProcessors) {
+            final IJobDefinition<?> jobDefinition = jobProcessor.getJobDefinition();
+            if (jobDefinition.getMaxConcurrentTasks() > 0) {
+                limits.put(jobDefinition.getProcessorType(), jobDefinition.getMaxConcurrentTasks());
+            }
+        }
+        limits.putAll(configuration.getTypeConcurrencyLimits());
+        return limits;
+    }
+
+    @Override
+    public void start() {
+        dispatcher.start();
+        LOG.info("[JobManager]: Dispatcher started");
+    }
+
+    @Override
+    public void stop() {
+        dispatcher.stop();
+        LOG.info("[JobManager]: Dispatcher stopped");
+    }
+
+    @Override
+    public void shutdown() {
+        stop();
+        if (timingWheel != null) {
+            timingWheel.shutdown();
+        }
+        if (readyQueue != null) {
+            readyQueue.shutdown();
+        }
+        // in-flight jobs may still hand their updates to the write-behind
+        awaitRunningJobs();
+        if (writeBehind != null) {
+            writeBehind.shutdown();
+        }
+        if (leaseKeeper != null) {
+            leaseKeeper.shutdown();
+        }
+        if (partitionAssignment != null) {
+            partitionAssignment.shutdown();
+        }
+    }
+
+    /**
+     * Shuts down executor created by the manager and waits until running jobs release their slots,
+     * executor provided by configuration is left running
+     */
+    private void awaitRunningJobs() {
+        final long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        try {
+            if (ownsExecutor) {
+                executor.shutdown();
+                executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            while (runningJobs.get() > 0 && System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (runningJobs.get() > 0) {
+            LOG.warn("[JobManager]: {} jobs are still running after shutdown timeout", runningJobs.get());
+        }
     }
 
     @Override
     public void clearExecutedJobs() {
         try {
-            int removedJobs = jobService.deleteExecutedJobs(jobsLifeTimeDays);
+            int removedJobs = purger != null ? purger.purge() : jobService.deleteExecutedJobs(jobsLifeTimeDays);
             LOG.info("[JobManager]: Cron to clear success jobs was executed. Removed {} jobs", removedJobs);
         } catch (Exception e) {
             LOG.error(e.getMessage(), e);
@@ -85,35 +265,443 @@ public abstract class AbstractJobManager<P extends IJobProcessor<?>, O> implemen
                 return;
             }
 
-            final IJob<O> job = jobService.getNextJobForRun(jobTypes, false, usePrioritySort);
-            if (job == null) {
-                LOG.trace("Jobs for execution are not found, exiting.");
+            final Set<String> availableTypes = typeLimits.availableTypes(jobTypes);
+            if (availableTypes.isEmpty()) {
+                LOG.debug("All job types reached their concurrency limits");
+                return;
+            }
+            if (reserveSlots(1) == 0) {
                 return;
             }
 
-            if (skipJob(job)) {
-                LOG.trace("Job {} need to be skipped.", job.getId());
-                onSkipJob(job);
+            final IJob<O> job;
+            try {
+                job = (readyQueue != null
+                        ? readyQueue.poll(typeLimits.claimBudgets(availableTypes), 1)
+                        : claimJobs(availableTypes, 1)).stream().findFirst().orElse(null);
+            } catch (Exception e) {
+                releaseSlots(1);
+                throw e;
+            }
+            if (job == null) {
+                releaseSlots(1);
+                LOG.trace("Jobs for execution are not found, exiting.");
                 return;
             }
 
-            final IJobProcessor<?> jobProcessor = jobProcessors.get(job.getType());
-            submitJob(job, jobProcessor);
+            dispatchJob(job, readyQueue != null);
         } catch (Exception e) {
             LOG.error("Failure during job execution, cause: {}", e.getMessage());
         }
     }
 
-    private boolean canExecuteNextPendingJob() {
-        final boolean executionApproved = Optional.ofNullable(executionApprover)
+    @Override
+    public int executePendingJobs() {
+        try {
+            if (!canExecuteNextPendingJob()) {
+                return 0;
+            }
+
+            final Set<String> availableTypes = typeLimits.availableTypes(jobTypes);
+            return executeJobs(availableTypes, typeLimits.freeSlots(availableTypes), readyQueue != null);
+        } catch (Exception e) {
+            LOG.error("Failure during jobs execution, cause: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Reserves slots, takes jobs of the given types from the ready-queue or the store and dispatches them
+     *
+     * @return number of submitted jobs
+     */
+    private int executeJobs(final Set<String> processorTypes, final int requestedSlots, final boolean fromReadyQueue) {
+        final int reservedSlots = reserveSlots(requestedSlots);
+        if (reservedSlots == 0) {
+            LOG.debug("All job types reached their concurrency limits");
+            return 0;
+        }
+
+        final List<IJob<O>> jobs;
+        try {
+            jobs = fromReadyQueue
+                    ? readyQueue.poll(typeLimits.claimBudgets(processorTypes), reservedSlots)
+                    : claimJobs(processorTypes, reservedSlots);
+        } catch (Exception e) {
+            releaseSlots(reservedSlots);
+            throw e;
+        }
+        releaseSlots(reservedSlots - jobs.size());
+        if (jobs.isEmpty()) {
+            LOG.trace("Jobs for execution are not found, exiting.");
+            return 0;
+        }
+
+        LOG.debug("Claimed {} jobs for {} reserved slots", jobs.size(), reservedSlots);
+        int submittedJobs = 0;
+        for (final IJob<O> job : jobs) {
+            if (dispatchJob(job, fromReadyQueue)) {
+                submittedJobs++;
+            }
+        }
+        return submittedJobs;
+    }
+
+    /**
+     * Called by the timing wheel when jobs postponed by this node are due, claims jobs of their types right away
+     *
+     * @param dueJobs number of due jobs per type
+     */
+    private void onJobsDue(final Map<String, Integer> dueJobs) {
+        dispatcher.wakeUp();
+        if (readyQueue != null) {
+            readyQueue.wakeUp();
+            return;
+        }
+        if (!canExecuteNextPendingJob()) {
+            return;
+        }
+        final Set<String> dueTypes = typeLimits.availableTypes(dueJobs.keySet());
+        if (dueTypes.isEmpty()) {
+            return;
+        }
+        int dueCount = 0;
+        for (final String dueType : dueTypes) {
+            dueCount += dueJobs.get(dueType);
+        }
+        final int submittedJobs = executeJobs(dueTypes, Math.min(dueCount, typeLimits.freeSlots(dueTypes)), false);
+        LOG.debug("Submitted {} of {} due postponed jobs", submittedJobs, dueCount);
+    }
+
+    /**
+     * Atomically reserves up to {@code requested} execution slots, slots are reserved before claim
+     * so concurrent callers can not claim more jobs than the executor is able to run
+     *
+     * @return number of reserved slots
+     */
+    private int reserveSlots(final int requested) {
+        int current;
+        int reserved;
+        do {
+            current = runningJobs.get();
+            reserved = Math.min(requested, currentConcurrencyLimit() - current);
+            if (reserved <= 0) {
+                return 0;
+            }
+        } while (!runningJobs.compareAndSet(current, current + reserved));
+        return reserved;
+    }
+
+    private void releaseSlots(final int slots) {
+        if (slots > 0) {
+            runningJobs.addAndGet(-slots);
+            dispatcher.onSlotReleased();
+        }
+    }
+
+    /**
+     * @return max number of running jobs at the moment, adaptive limit never exceeds max concurrent tasks
+     */
+    private int currentConcurrencyLimit() {
+        return concurrencyLimit != null
+                ? Math.min(concurrencyLimit.getLimit(), maxConcurrentTasks)
+                : maxConcurrentTasks;
+    }
+
+    /**
+     * Feeds execution of a job or a batch to adaptive concurrency limits
+     *
+     * @param inFlight     number of running jobs when execution started
+     * @param typeInFlight number of running jobs of the type when execution started
+     */
+    private void sampleConcurrencyLimits(final String jobType, final long startNanos, final int inFlight,
+                                         final int typeInFlight, final boolean failed) {
+        final IConcurrencyLimit typeLimit = typeLimits.adaptiveLimit(jobType);
+        if (concurrencyLimit == null && typeLimit == null) {
+            return;
+        }
+        final long latencyNanos = System.nanoTime() - startNanos;
+        if (concurrencyLimit != null) {
+            sampleConcurrencyLimit(null, concurrencyLimit, latencyNanos, inFlight, failed);
+        }
+        if (typeLimit != null) {
+            sampleConcurrencyLimit(jobType, typeLimit, latencyNanos, typeInFlight, failed);
+        }
+    }
+
+    private void sampleConcurrencyLimit(final String jobType, final IConcurrencyLimit limit, final long latencyNanos,
+                                        final int inFlight, final boolean failed) {
+        final int previousLimit = limit.getLimit();
+        limit.onSample(latencyNanos, inFlight, failed);
+        final int newLimit = limit.getLimit();
+        if (newLimit == previousLimit) {
+            return;
+        }
+        LOG.debug("Concurrency limit of {} changed from {} to {}", jobType == null ? "all job types" : jobType, previousLimit, newLimit);
+        if (trackerManager != null) {
+            trackerManager.onConcurrencyLimitChanged(jobType, newLimit);
+        }
+        if (newLimit > previousLimit) {
+            dispatcher.onSlotReleased();
+        }
+    }
+
+    private List<IJob<O>> prefetchJobs(final int limit) {
+        if (!isExecutionApproved()) {
+            return Collections.emptyList();
+        }
+        final Set<String> availableTypes = typeLimits.availableTypes(jobTypes);
+        if (availableTypes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // jobs already in the queue will take free slots of their types first
+        final Map<String, Integer> typeBudgets = typeLimits.claimBudgets(availableTypes);
+        if (!typeBudgets.isEmpty()) {
+            readyQueue.countByType().forEach((jobType, queuedJobs) ->
+                    typeBudgets.computeIfPresent(jobType, (type, budget) -> Math.max(budget - queuedJobs, 0)));
+        }
+        return claimJobs(availableTypes, limit, typeBudgets);
+    }
+
+    /**
+     * Claims jobs by plans of the scheduling policy. Types with a concurrency limit are claimed by separate requests
+     * which never ask for more jobs than free slots of the type, so the store can not fill the claim with jobs
+     * which would be handed back right away. When a request fails after jobs were claimed by earlier requests,
+     * the claimed jobs are returned and the failure is logged, so they are not left in PROCESSING
+     */
+    private List<IJob<O>> claimJobs(final Set<String> processorTypes, final int limit) {
+        return claimJobs(processorTypes, limit, typeLimits.claimBudgets(processorTypes));
+    }
+
+    /**
+     * @param typeBudgets max number of jobs claimed per type with a concurrency limit, decreased by claimed jobs
+     */
+    private List<IJob<O>> claimJobs(final Set<String> processorTypes, final int limit, final Map<String, Integer> typeBudgets) {
+        final List<ClaimPlan> plans = schedulingPolicy.plan(processorTypes, limit);
+        final List<IJob<O>> jobs = new ArrayList<>(limit);
+        for (final ClaimPlan plan : plans) {
+            final int remaining = limit - jobs.size();
+            if (remaining <= 0) {
+                break;
+            }
+            if (plan.getProcessorTypes().isEmpty() || plan.getLimit() <= 0) {
+                continue;
+            }
+            final List<IJob<O>> claimedJobs;
+            try {
+                claimedJobs = typeBudgets.isEmpty()
+                        ? claimJobs(plan, Math.min(plan.getLimit(), remaining))
+                        : claimJobs(plan, Math.min(plan.getLimit(), remaining), typeBudgets);
+            } catch (RuntimeException e) {
+                return onClaimFailed(jobs, e);
+            }
+            jobs.addAll(claimedJobs);
+            onJobsClaimed(claimedJobs);
+        }
+        return jobs;
+    }
+
+    /**
+     * Claims jobs of types without concurrency limit by one request and jobs of every limited type by its own request
+     *
+     * @param typeBudgets free slots of limited types, decreased by claimed jobs
+     */
+    private List<IJob<O>> claimJobs(final ClaimPlan plan, final int limit, final Map<String, Integer> typeBudgets) {
+        final List<IJob<O>> jobs = new ArrayList<>(limit);
+        final Set<String> unlimitedTypes = new HashSet<>(plan.getProcessorTypes());
+        unlimitedTypes.removeAll(typeBudgets.keySet());
+        if (!unlimitedTypes.isEmpty()) {
+            jobs.addAll(claimJobs(copyPlan(plan, unlimitedTypes, limit), limit));
+        }
+        for (final String processorType : plan.getProcessorTypes()) {
+            final Integer budget = typeBudgets.get(processorType);
+            final int typeLimit = budget == null ? 0 : Math.min(budget, limit - jobs.size());
+            if (typeLimit <= 0) {
+                continue;
+            }
+            final List<IJob<O>> claimedJobs;
+            try {
+                claimedJobs = claimJobs(copyPlan(plan, Collections.singleton(processorType), typeLimit), typeLimit);
+            } catch (RuntimeException e) {
+                return onClaimFailed(jobs, e);
+            }
+            typeBudgets.put(processorType, budget - claimedJobs.size());
+            jobs.addAll(claimedJobs);
+        }
+        return jobs;
+    }
+
+    /**
+     * @param claimedJobs jobs claimed by earlier requests of the same claim
+     * @return claimed jobs, the failure is rethrown if there are none
+     */
+    private List<IJob<O>> onClaimFailed(final List<IJob<O>> claimedJobs, final RuntimeException e) {
+        if (claimedJobs.isEmpty()) {
+            throw e;
+        }
+        LOG.error("[JobManager]: Failed to claim jobs, {} jobs claimed before the failure are run. Cause: {}",
+                claimedJobs.size(), e.getMessage());
+        return claimedJobs;
+    }
+
+    private static ClaimPlan copyPlan(final ClaimPlan plan, final Set<String> processorTypes, final int limit) {
+        return new ClaimPlan(processorTypes, limit, plan.isSortByPriority(), plan.getAgingIntervalMillis());
+    }
+
+    private void onJobsClaimed(final List<IJob<O>> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        final Map<String, Integer> claimedTypes = new HashMap<>();
+        for (final IJob<O> job : jobs) {
+            claimedTypes.merge(job.getType(), 1, Integer::sum);
+        }
+        claimedTypes.forEach(schedulingPolicy::onJobsClaimed);
+    }
+
+    private List<IJob<O>> claimJobs(final ClaimPlan plan, final int limit) {
+        if (partitionAssignment == null) {
+            return claimJobs(plan, limit, Collections.emptySet());
+        }
+        final Set<Integer> ownedPartitions = partitionAssignment.getOwnedPartitions();
+        if (!ownedPartitions.isEmpty()) {
+            final List<IJob<O>> jobs = claimJobs(plan, limit, ownedPartitions);
+            if (!jobs.isEmpty()) {
+                return jobs;
+            }
+        }
+        // node is idle, steal jobs of partitions owned by other nodes
+        final Set<Integer> foreignPartitions = partitionAssignment.getForeignPartitions();
+        return foreignPartitions.isEmpty()
+                ? Collections.emptyList()
+                : claimJobs(plan, limit, foreignPartitions);
+    }
+
+    private List<IJob<O>> claimJobs(final ClaimPlan plan, final int limit, final Set<Integer> partitions) {
+        final JobClaimRequest request = JobClaimRequest.builder()
+                .withProcessorTypes(plan.getProcessorTypes())
+                .withSortByPriority(plan.isSortByPriority())
+                .withAgingIntervalMillis(plan.getAgingIntervalMillis())
+                .withLimit(limit)
+                .withOwnerId(nodeId)
+                .withLeaseExpiryDate(leaseKeeper != null ? leaseKeeper.nextLeaseExpiryDate() : null)
+                .withPartitions(partitions)
+                .build();
+        final List<IJob<O>> jobs = jobService.claimJobs(request);
+        if (leaseKeeper != null) {
+            leaseKeeper.register(jobs);
+        }
+        return jobs;
+    }
+
+    /**
+     * Takes next job from the ready-queue, so a worker that has just finished a job
+     * can continue without a store round-trip
+     */
+    private IJob<O> pollReadyJob() {
+        if (readyQueue == null || !canExecuteNextPendingJob()) {
+            return null;
+        }
+        while (reserveSlots(1) > 0) {
+            final IJob<O> job = readyQueue.poll(typeLimits.claimBudgets(jobTypes), 1).stream().findFirst().orElse(null);
+            if (job == null) {
+                releaseSlots(1);
+                return null;
+            }
+            if (acquireJob(job, true)) {
+                return job;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Submits claimed job for which a slot is already reserved, the slot is released if job can not be run
+     */
+    private boolean dispatchJob(final IJob<O> job, final boolean fromReadyQueue) {
+        if (!acquireJob(job, fromReadyQueue)) {
+            return false;
+        }
+
+        final IJobProcessor<?> jobProcessor = jobProcessors.get(job.getType());
+        final boolean submitted = submitJob(job, jobProcessor);
+        if (!submitted) {
+            typeLimits.release(job.getType());
+            releaseSlots(1);
+            releaseJob(job);
+        }
+        return submitted;
+    }
+
+    /**
+     * Skips the job or takes a slot of its type, jobs of types which reached their limit are put back
+     * to the ready-queue they were taken from or returned to the store.
+     * Reserved execution slot is released if job can not be run
+     *
+     * @return true if job can be run
+     */
+    private boolean acquireJob(final IJob<O> job, final boolean fromReadyQueue) {
+        if (skipJob(job)) {
+            LOG.trace("Job {} need to be skipped.", job.getId());
+            releaseSlots(1);
+            onSkipJob(job);
+            return false;
+        }
+        if (!typeLimits.tryAcquire(job.getType())) {
+            releaseSlots(1);
+            if (fromReadyQueue && readyQueue.requeue(job)) {
+                LOG.debug("Job type {} reached its concurrency limit, job {} is put back to the ready-queue", job.getType(), job.getId());
+                return false;
+            }
+            LOG.debug("Job type {} reached its concurrency limit, releasing job {}", job.getType(), job.getId());
+            releaseJob(job);
+            return false;
+        }
+        return true;
+    }
+
+    private void releaseJob(final IJob<O> job) {
+        onJobReleased(job);
+        try {
+            jobService.releaseJob(job);
+        } catch (Exception e) {
+            LOG.error("Failed to release job with id: {}, cause: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private void releaseJobs(final List<IJob<O>> jobs) {
+        jobs.forEach(this::onJobReleased);
+        jobService.releaseJobs(jobs);
+    }
+
+    /**
+     * Called when job leaves PROCESSING state on this node
+     */
+    private void onJobReleased(final IJob<O> job) {
+        if (leaseKeeper != null) {
+            leaseKeeper.unregister(job);
+        }
+    }
+
+    private boolean hasFreeSlots() {
+        return runningJobs.get() < currentConcurrencyLimit()
+                && (typeLimits.isEmpty() || typeLimits.freeSlots(jobTypes) > 0);
+    }
+
+    private boolean isExecutionApproved() {
+        return Optional.ofNullable(executionApprover)
                 .map(IJobExecutionApprover::approveJobExecution)
                 .orElse(true);
-        if (!executionApproved) {
+    }
+
+    private boolean canExecuteNextPendingJob() {
+        if (!isExecutionApproved()) {
             LOG.debug("Job execution was not approved");
             return false;
         }
-        if (runningJobs.get() >= maxConcurrentTasks) {
-            LOG.info("Running job count {} exceed max concurrent tasks threshold {}", runningJobs.get(), maxConcurrentTasks);
+        final int limit = currentConcurrencyLimit();
+        if (runningJobs.get() >= limit) {
+            LOG.info("Running job count {} exceed max concurrent tasks threshold {}", runningJobs.get(), limit);
             return false;
         }
         return true;
@@ -130,7 +718,9 @@ public abstract class AbstractJobManager<P extends IJobProcessor<?>, O> implemen
     }
 
     protected void tryPostponeJob(final IJob<O> job, final Integer customPostponeMinutes) {
-        if (job.getPostponeCount() >= this.postponeCount) {
+        final IRetryPolicy retryPolicy = retryPolicies.get(job.getType());
+        final int maxPostponeCount = retryPolicy != null ? retryPolicy.getMaxAttempts() : this.postponeCount;
+        if (job.getPostponeCount() >= maxPostponeCount) {
             onPostponeCountExceeded(job);
         } else {
             onPostponeAvailable(job, customPostponeMinutes);
@@ -143,30 +733,89 @@ public abstract class AbstractJobManager<P extends IJobProcessor<?>, O> implemen
     }
 
     protected void onPostponeAvailable(final IJob<O> job, final Integer customPostponeMinutes) {
-        Date date = getPostponedDate(customPostponeMinutes);
+        Date date = getPostponedDate(job, customPostponeMinutes);
         LOG.info("Postponing job with id: {}, of type: {}, next executing time: {}", job.getId(), job.getType(), date);
         job.setDate(date);
         job.setStatus(JobStatus.POSTPONED);
         job.incPostponeCount();
+        if (timingWheel != null) {
+            timingWheel.schedule(job.getType(), date.getTime());
+        }
         trackStat(job, IJobTrackerManager::onPostponed);
     }
 
-    private Date getPostponedDate(final Integer customPostponeMinutes) {
+    private Date getPostponedDate(final IJob<O> job, final Integer customPostponeMinutes) {
+        final IRetryPolicy retryPolicy = retryPolicies.get(job.getType());
+        if (customPostponeMinutes == null && retryPolicy != null) {
+            final long delayMillis = retryPolicy.getDelayMillis(job.getPostponeCount() + 1, getPreviousPostponeDelay(job));
+            return new Date(System.currentTimeMillis() + delayMillis);
+        }
         final LocalDateTime localDateTime = LocalDateTime.now(ZoneOffset.UTC)
                 .plusMinutes(Optional.ofNullable(customPostponeMinutes).orElse(postponeMinutes));
         return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
     }
 
-    private void submitJob(final IJob<O> job, final IJobProcessor<?> processor) {
+    /**
+     * Job date is the due date of the previous postpone and processed date is still the date of the run which postponed it
+     */
+    private static long getPreviousPostponeDelay(final IJob<?> job) {
+        if (job.getPostponeCount() == 0 || job.getDate() == null || job.getProcessedDate() == null) {
+            return 0;
+        }
+        return Math.max(job.getDate().getTime() - job.getProcessedDate().getTime(), 0);
+    }
+
+    private boolean submitJob(final IJob<O> job, final IJobProcessor<?> processor) {
         try {
-            final Runnable runner = new JobRunner<>(job, processor);
-            executor.execute(runner);
+            executor.execute(newRunner(job, processor));
+            return true;
         } catch (RejectedExecutionException e) {
             LOG.warn("Executor rejected task. Job id: {} . Active running jobs count {}. Message {}",
                     job.getId(), runningJobs.get(), e.getMessage());
         } catch (Exception e) {
             LOG.error("Internal Job exception error", e);
         }
+        return false;
+    }
+
+    private AbstractJobRunner newRunner(final IJob<O> job, final IJobProcessor<?> processor) {
+        return processor instanceof IBatchJobProcessor
+                ? new BatchJobRunner<>(job, (IBatchJobProcessor<?>) processor)
+                : new JobRunner<>(job, processor);
+    }
+
+    /**
+     * Runs jobs taken from the ready-queue on the current worker until the queue is empty.
+     * Runners are executed in this loop, not run, so draining does not grow the stack
+     */
+    private void runReadyJobs() {
+        IJob<O> nextJob;
+        while ((nextJob = pollReadyJob()) != null) {
+            newRunner(nextJob, jobProcessors.get(nextJob.getType())).execute();
+        }
+    }
+
+    /**
+     * Takes up to {@code limit} more claimed jobs of the given type for a batch, slots of the batch are not reserved for them
+     */
+    private List<IJob<O>> pollBatchJobs(final String processorType, final int limit) {
+        final List<IJob<O>> jobs = new ArrayList<>(limit);
+        if (readyQueue != null) {
+            jobs.addAll(readyQueue.poll(processorType, limit));
+        }
+        if (jobs.size() < limit && isExecutionApproved()) {
+            jobs.addAll(claimJobs(Collections.singleton(processorType), limit - jobs.size()));
+        }
+        final List<IJob<O>> batchJobs = new ArrayList<>(jobs.size());
+        for (final IJob<O> job : jobs) {
+            if (skipJob(job)) {
+                LOG.trace("Job {} need to be skipped.", job.getId());
+                onSkipJob(job);
+            } else {
+                batchJobs.add(job);
+            }
+        }
+        return batchJobs;
     }
 
     protected void onStart(final IJob<O> job) {
@@ -194,9 +843,20 @@ public abstract class AbstractJobManager<P extends IJobProcessor<?>, O> implemen
         job.setLastErrorDate(new Date());
     }
 
+    /**
+     * Saves final state of the job, lease of the job is renewed until the state is saved
+     */
     private void updateDbJob(final IJob<O> job) {
         job.setProcessedDate(new Date());
-        jobService.saveJob(job);
+        if (writeBehind != null && !synchronouslySavedStatuses.contains(job.getStatus()) && writeBehind.offer(job)) {
+            // lease is released by the write-behind once the batch is saved
+            return;
+        }
+        try {
+            jobService.saveJob(job);
+        } finally {
+            onJobReleased(job);
+        }
     }
 
     private void trackStat(final IJob<O> job,
@@ -204,34 +864,70 @@ public abstract class AbstractJobManager<P extends IJobProcessor<?>, O> implemen
         Optional.ofNullable(trackerManager).ifPresent(manager -> biConsumer.accept(manager, job));
     }
 
+    /**
+     * Task of the executor: runs its job, then continues with jobs of the ready-queue
+     */
+    private abstract class AbstractJobRunner implements Runnable {
+
+        @Override
+        public final void run() {
+            execute();
+            runReadyJobs();
+        }
+
+        /**
+         * Runs the job and releases its slots
+         */
+        abstract void execute();
+    }
+
     /**
      * Internal JobRunner  class
      */
-    private final class JobRunner<T> implements Runnable {
+    private final class JobRunner<T> extends AbstractJobRunner {
 
         private final IJob<O> job;
         private final IJobProcessor<T> jobProcessor;
+        private final IJobDataCodec<T> dataCodec;
         private T jobData;
 
+        @SuppressWarnings("unchecked")
         JobRunner(IJob<O> job, IJobProcessor<T> jobProcessor) {
             this.job = job;
             this.jobProcessor = jobProcessor;
+            this.dataCodec = (IJobDataCodec<T>) dataCodecs.get(job.getType());
         }
 
         @Override
-        public void run() {
+        void execute() {
+            final long startNanos = System.nanoTime();
+            final int inFlight = runningJobs.get();
+            final int typeInFlight = typeLimits.running(job.getType());
             try {
-                onStart(job);
-                runningJobs.incrementAndGet();
-                LOG.info("Executing job with id: {}", job.getId());
-                jobData = JsonUtils.parseJson(job.getData(), jobProcessor.getJobDefinition().getClassReference());
+                prepare();
                 final Object result = jobProcessor.call(jobData);
                 onSuccess(result);
             } catch (Exception e) {
                 onError(e);
             } finally {
-                onFinish(job);
-                runningJobs.decrementAndGet();
+                finish();
+                sampleConcurrencyLimits(job.getType(), startNanos, inFlight, typeInFlight, job.getStatus() != JobStatus.SUCCESS);
+                typeLimits.release(job.getType());
+                releaseSlots(1);
+            }
+        }
+
+        void prepare() throws Exception {
+            job.setStartedDate(new Date());
+            onStart(job);
+            LOG.info("Executing job with id: {}", job.getId());
+            jobData = dataCodec.decode(job);
+        }
+
+        void finish() {
+            onFinish(job);
+            if (writeBehind == null || !writeBehind.isPending(job)) {
+                onJobReleased(job);
             }
         }
 
@@ -262,7 +958,7 @@ public abstract class AbstractJobManager<P extends IJobProcessor<?>, O> implemen
 
         void updateJobData(boolean quietly) {
             try {
-                job.setData(JsonUtils.convertToJson(jobData));
+                dataCodec.encode(job, jobData);
             } catch (Exception e) {
                 if (quietly) {
                     LOG.error("Failed to update job data with id: {}", job.getId(), e);
@@ -282,4 +978,110 @@ public abstract class AbstractJobManager<P extends IJobProcessor<?>, O> implemen
             updateDbJob(job);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs a batch of jobs of one type, the batch holds one execution slot and one slot of its type
+     */
+    private final class BatchJobRunner<T> extends AbstractJobRunner {
+
+        // pause between attempts to fill up the batch
+        private static final long BATCH_POLL_MILLIS = 20L;
+
+        private final IJob<O> firstJob;
+        private final IBatchJobProcessor<T> jobProcessor;
+
+        BatchJobRunner(IJob<O> firstJob, IBatchJobProcessor<T> jobProcessor) {
+            this.firstJob = firstJob;
+            this.jobProcessor = jobProcessor;
+        }
+
+        @Override
+        void execute() {
+            final long startNanos = System.nanoTime();
+            final int inFlight = runningJobs.get();
+            final int typeInFlight = typeLimits.running(firstJob.getType());
+            final List<JobRunner<T>> runners = new ArrayList<>();
+            runners.add(new JobRunner<>(firstJob, jobProcessor));
+            try {
+                collect(runners);
+                final List<JobRunner<T>> preparedRunners = prepare(runners);
+                if (!preparedRunners.isEmpty()) {
+                    call(preparedRunners);
+                }
+            } finally {
+                runners.forEach(JobRunner::finish);
+                // batch is one sample, it is failed only when none of its jobs succeeded
+                final boolean failed = runners.stream().noneMatch(runner -> runner.job.getStatus() == JobStatus.SUCCESS);
+                sampleConcurrencyLimits(firstJob.getType(), startNanos, inFlight, typeInFlight, failed);
+                typeLimits.release(firstJob.getType());
+                releaseSlots(1);
+            }
+        }
+
+        private void collect(final List<JobRunner<T>> runners) {
+            final int maxBatchSize = jobProcessor.getMaxBatchSize();
+            final long deadline = System.currentTimeMillis() + jobProcessor.getMaxBatchWaitMillis();
+            try {
+                while (runners.size() < maxBatchSize) {
+                    for (final IJob<O> job : pollBatchJobs(firstJob.getType(), maxBatchSize - runners.size())) {
+                        runners.add(new JobRunner<>(job, jobProcessor));
+                    }
+                    final long remainingMillis = deadline - System.currentTimeMillis();
+                    if (runners.size() >= maxBatchSize || remainingMillis <= 0) {
+                        break;
+                    }
+                    TimeUnit.MILLISECONDS.sleep(Math.min(remainingMillis, BATCH_POLL_MILLIS));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOG.error("Failed to collect batch of jobs of type: {}, cause: {}", firstJob.getType(), e.getMessage());
+            }
+        }
+
+        private List<JobRunner<T>> prepare(final List<JobRunner<T>> runners) {
+            final List<JobRunner<T>> preparedRunners = new ArrayList<>(runners.size());
+            for (final JobRunner<T> runner : runners) {
+                try {
+                    runner.prepare();
+                    preparedRunners.add(runner);
+                } catch (Exception e) {
+                    runner.onError(e);
+                }
+            }
+            return preparedRunners;
+        }
+
+        private void call(final List<JobRunner<T>> runners) {
+            final List<T> data = new ArrayList<>(runners.size());
+            for (final JobRunner<T> runner : runners) {
+                data.add(runner.jobData);
+            }
+            LOG.info("Executing batch of {} jobs of type: {}", runners.size(), firstJob.getType());
+            final List<BatchItemResult> results;
+            try {
+                results = jobProcessor.callBatch(data);
+                if (results == null || results.size() != runners.size()) {
+                    throw new JobExecutionException(String.format("Batch processor of type %s returned %s results for %s jobs",
+                            firstJob.getType(), results == null ? null : results.size(), runners.size()));
+                }
+            } catch (Exception e) {
+                runners.forEach(runner -> runner.onError(e));
+                return;
+            }
+            for (int i = 0; i < runners.size(); i++) {
+                final JobRunner<T> runner = runners.get(i);
+                final BatchItemResult result = results.get(i);
+                try {
+                    if (result.isSuccess()) {
+                        runner.onSuccess(result.getResult());
+                    } else {
+                        runner.onError(result.getError());
+                    }
+                } catch (Exception e) {
+                    runner.onError(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.util.Assert;
+
+/**
+ * Result of one job of {@link IBatchJobProcessor#callBatch(java.util.List)}. Errors are handled as exceptions
+ * thrown by {@link IJobProcessor#call(Object)}, so {@link io.maestro3.job.engine.exception.JobPostponeException}
+ * postpones the job
+ */
+public final class BatchItemResult {
+
+    private static final BatchItemResult EMPTY_SUCCESS = new BatchItemResult(null, null);
+
+    private final Object result;
+    private final Exception error;
+
+    private BatchItemResult(Object result, Exception error) {
+        this.result = result;
+        this.error = error;
+    }
+
+    public static BatchItemResult success() {
+        return EMPTY_SUCCESS;
+    }
+
+    /**
+     * @param result result of the job, stored as json
+     */
+    public static BatchItemResult success(Object result) {
+        return result == null ? EMPTY_SUCCESS : new BatchItemResult(result, null);
+    }
+
+    public static BatchItemResult failure(Exception error) {
+        Assert.notNull(error, "error must not be null");
+        return new BatchItemResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public Exception getError() {
+        return error;
+    }
+}
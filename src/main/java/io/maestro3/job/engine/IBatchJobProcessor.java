@@ -0,0 +1,41 @@
+package io.maestro3.job.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Processor which runs several jobs of its type in one call. Job manager gathers up to {@link #getMaxBatchSize()}
+ * claimed jobs of the type, waiting at most {@link #getMaxBatchWaitMillis()} for the batch to fill up.
+ * A batch takes one execution slot and one slot of the type concurrency limit
+ */
+public interface IBatchJobProcessor<D> extends IJobProcessor<D> {
+
+    /**
+     * @return max number of jobs passed to {@link #callBatch(List)}
+     */
+    int getMaxBatchSize();
+
+    /**
+     * @return max time the first job of a batch waits for other jobs, 0 to run jobs which are already claimed only
+     */
+    default long getMaxBatchWaitMillis() {
+        return 0;
+    }
+
+    /**
+     * Executes jobs of the batch. Exception thrown by the method is applied to every job of the batch
+     *
+     * @param data data of the jobs
+     * @return result of every job in the order of the data
+     */
+    List<BatchItemResult> callBatch(List<D> data) throws Exception;
+
+    @Override
+    default Object call(D data) throws Exception {
+        final BatchItemResult result = callBatch(Collections.singletonList(data)).get(0);
+        if (!result.isSuccess()) {
+            throw result.getError();
+        }
+        return result.getResult();
+    }
+}
@@ -1,7 +1,12 @@
 package io.maestro3.job.engine;
 
 import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.JobStatus;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Set;
 
 public interface IDbJobService<O> {
@@ -13,7 +18,131 @@ public interface IDbJobService<O> {
      */
     int deleteExecutedJobs(int daysInterval);
 
+    /**
+     * Finds the oldest success jobs processed before the given date, used by chunked purge together with
+     * {@link #deleteExecutedJobs(Collection)}. Stores are expected to serve it from an index on status and processed date
+     *
+     * @param processedBefore exclusive upper bound of processed date
+     * @param limit           max number of jobs to return
+     * @return jobs ordered by processed date, empty list when there are no such jobs
+     * @throws UnsupportedOperationException if the store supports {@link #deleteExecutedJobs(int)} only
+     */
+    default List<IJob<O>> findExecutedJobs(Date processedBefore, int limit) {
+        throw new UnsupportedOperationException("Chunked purge of executed jobs is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Removes success jobs with given ids in a single query, jobs which are not in SUCCESS status any more are kept
+     *
+     * @param jobIds ids of jobs returned by {@link #findExecutedJobs(Date, int)}
+     * @return number of removed jobs
+     * @throws UnsupportedOperationException if the store supports {@link #deleteExecutedJobs(int)} only
+     */
+    default int deleteExecutedJobs(Collection<String> jobIds) {
+        throw new UnsupportedOperationException("Chunked purge of executed jobs is not supported by " + getClass().getName());
+    }
+
     IJob<O> getNextJobForRun(Set<String> processorTypes, boolean excludeTypes, boolean sortByPriority);
 
+    /**
+     * Claims up to {@code limit} jobs for run in a single call. Stores are expected to override this method
+     * with a single query, default implementation falls back to {@link #getNextJobForRun(Set, boolean, boolean)}
+     *
+     * @param limit max number of jobs to claim
+     * @return claimed jobs, empty list when there are no jobs for run
+     */
+    default List<IJob<O>> getNextJobsForRun(Set<String> processorTypes, boolean excludeTypes, boolean sortByPriority, int limit) {
+        final List<IJob<O>> jobs = new ArrayList<>(Math.max(limit, 0));
+        for (int i = 0; i < limit; i++) {
+            final IJob<O> job = getNextJobForRun(processorTypes, excludeTypes, sortByPriority);
+            if (job == null) {
+                break;
+            }
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /**
+     * Claims jobs described by the request. Stores are expected to override this method and set owner
+     * and lease expiry date in the same query, default implementation stamps them on claimed jobs
+     * and persists them with {@link #renewLeases(String, Collection, Date)}.
+     * Default implementation ignores {@link JobClaimRequest#getPartitions()}, stores supporting partitioning
+     * must claim jobs of the requested partitions only
+     *
+     * @return claimed jobs, empty list when there are no jobs for run
+     */
+    default List<IJob<O>> claimJobs(JobClaimRequest request) {
+        final List<IJob<O>> jobs = getNextJobsForRun(request.getProcessorTypes(), request.isExcludeTypes(),
+                request.isSortByPriority(), request.getLimit());
+        if (jobs.isEmpty() || request.getOwnerId() == null) {
+            return jobs;
+        }
+        final List<String> jobIds = new ArrayList<>(jobs.size());
+        for (final IJob<O> job : jobs) {
+            job.setOwnerId(request.getOwnerId());
+            job.setLeaseExpiryDate(request.getLeaseExpiryDate());
+            jobIds.add(job.getId());
+        }
+        if (request.getLeaseExpiryDate() != null) {
+            renewLeases(request.getOwnerId(), jobIds, request.getLeaseExpiryDate());
+        }
+        return jobs;
+    }
+
+    /**
+     * Extends leases of PROCESSING jobs owned by the node in a single update.
+     * Only lease expiry date must be updated, other fields may be concurrently changed by workers.
+     * Default implementation does nothing, stores supporting leases must override it
+     *
+     * @param ownerId         id of the node which owns the jobs
+     * @param jobIds          ids of jobs which are still in flight on the node
+     * @param leaseExpiryDate new lease expiry date
+     */
+    default void renewLeases(String ownerId, Collection<String> jobIds, Date leaseExpiryDate) {
+    }
+
+    /**
+     * Returns PROCESSING jobs whose lease expired before given date back to PENDING.
+     * Default implementation does nothing, stores supporting leases must override it
+     *
+     * @return number of recovered jobs
+     */
+    default int recoverExpiredJobs(Date expiredBefore) {
+        return 0;
+    }
+
     void saveJob(IJob<O> job);
+
+    /**
+     * Saves several jobs at once, stores are expected to override this method with a single bulk write
+     */
+    default void saveJobs(Collection<IJob<O>> jobs) {
+        for (final IJob<O> job : jobs) {
+            saveJob(job);
+        }
+    }
+
+    /**
+     * Immediately returns claimed but not executed job back to PENDING, so it can be claimed again
+     *
+     * @param job job previously returned by one of the claim methods
+     */
+    default void releaseJob(IJob<O> job) {
+        job.setStatus(JobStatus.PENDING);
+        job.setOwnerId(null);
+        job.setLeaseExpiryDate(null);
+        saveJob(job);
+    }
+
+    /**
+     * Returns claimed but not executed jobs back to PENDING, stores are expected to override this method with a single query
+     *
+     * @param jobs jobs previously returned by one of the claim methods
+     */
+    default void releaseJobs(Collection<IJob<O>> jobs) {
+        for (final IJob<O> job : jobs) {
+            releaseJob(job);
+        }
+    }
 }
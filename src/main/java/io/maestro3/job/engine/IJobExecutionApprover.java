@@ -1,5 +1,9 @@
 package io.maestro3.job.engine;
 
+/**
+ * Decides whether the node takes new jobs, it is called before every claim. Expensive approvers should be wrapped
+ * by {@link io.maestro3.job.engine.approver.CachedExecutionApprover}
+ */
 @FunctionalInterface
 public interface IJobExecutionApprover {
 
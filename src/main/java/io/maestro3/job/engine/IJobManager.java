@@ -12,4 +12,27 @@ public interface IJobManager {
      */
     void executeNextPendingJob();
 
+    /**
+     * Executes as many pending jobs as there are free execution slots
+     *
+     * @return number of jobs submitted for execution
+     */
+    int executePendingJobs();
+
+    /**
+     * Starts built-in dispatcher which polls and executes pending jobs until {@link #stop()} is called,
+     * so there is no need to call {@link #executePendingJobs()} by an external scheduler
+     */
+    void start();
+
+    /**
+     * Stops built-in dispatcher, jobs which are already running are not interrupted
+     */
+    void stop();
+
+    /**
+     * Stops background activities of the manager, returns prefetched jobs back to the store and flushes pending job updates
+     */
+    void shutdown();
+
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.util.Assert;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Describes which jobs should be claimed by {@link IDbJobService#claimJobs(JobClaimRequest)}
+ */
+public class JobClaimRequest {
+
+    private final Set<String> processorTypes;
+    private final boolean excludeTypes;
+    private final boolean sortByPriority;
+    private final int limit;
+    private final String ownerId;
+    private final Date leaseExpiryDate;
+    private final Set<Integer> partitions;
+    private final long agingIntervalMillis;
+
+    private JobClaimRequest(Builder builder) {
+        this.processorTypes = builder.processorTypes;
+        this.excludeTypes = builder.excludeTypes;
+        this.sortByPriority = builder.sortByPriority;
+        this.limit = builder.limit;
+        this.ownerId = builder.ownerId;
+        this.leaseExpiryDate = builder.leaseExpiryDate;
+        this.partitions = builder.partitions;
+        this.agingIntervalMillis = builder.agingIntervalMillis;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Set<String> getProcessorTypes() {
+        return processorTypes;
+    }
+
+    public boolean isExcludeTypes() {
+        return excludeTypes;
+    }
+
+    public boolean isSortByPriority() {
+        return sortByPriority;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return id of the node which claims jobs, null if ownership is not tracked
+     */
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * @return date until which claimed jobs are owned by the node, null if leases are disabled
+     */
+    public Date getLeaseExpiryDate() {
+        return leaseExpiryDate;
+    }
+
+    /**
+     * @return partitions to claim jobs from, empty to claim from any partition
+     */
+    public Set<Integer> getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * @return wait time which raises effective priority of a job by one, 0 if priorities do not age.
+     * Stores which do not support aging may order by {@link #isSortByPriority()} instead
+     */
+    public long getAgingIntervalMillis() {
+        return agingIntervalMillis;
+    }
+
+    public static final class Builder {
+        private Set<String> processorTypes = Collections.emptySet();
+        private boolean excludeTypes;
+        private boolean sortByPriority;
+        private int limit = 1;
+        private String ownerId;
+        private Date leaseExpiryDate;
+        private Set<Integer> partitions = Collections.emptySet();
+        private long agingIntervalMillis;
+
+        private Builder() {
+        }
+
+        public Builder withProcessorTypes(Set<String> processorTypes) {
+            this.processorTypes = processorTypes;
+            return this;
+        }
+
+        public Builder withExcludeTypes(boolean excludeTypes) {
+            this.excludeTypes = excludeTypes;
+            return this;
+        }
+
+        public Builder withSortByPriority(boolean sortByPriority) {
+            this.sortByPriority = sortByPriority;
+            return this;
+        }
+
+        public Builder withLimit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public Builder withOwnerId(String ownerId) {
+            this.ownerId = ownerId;
+            return this;
+        }
+
+        public Builder withLeaseExpiryDate(Date leaseExpiryDate) {
+            this.leaseExpiryDate = leaseExpiryDate;
+            return this;
+        }
+
+        public Builder withPartitions(Set<Integer> partitions) {
+            this.partitions = partitions;
+            return this;
+        }
+
+        public Builder withAgingIntervalMillis(long agingIntervalMillis) {
+            this.agingIntervalMillis = agingIntervalMillis;
+            return this;
+        }
+
+        public JobClaimRequest build() {
+            Assert.notNull(processorTypes, "processorTypes must not be null");
+            Assert.notNull(partitions, "partitions must not be null");
+            Assert.positiveInt(limit, "limit");
+            Assert.inRange(agingIntervalMillis, 0, Long.MAX_VALUE, "agingIntervalMillis");
+            return new JobClaimRequest(this);
+        }
+    }
+}
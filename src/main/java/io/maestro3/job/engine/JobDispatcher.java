@@ -0,0 +1,131 @@
+package io.maestro3.job.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Self-driving poll loop. Polls again right after a successful claim, backs off exponentially
+ * with jitter while the store has nothing to run and parks until a slot is released while all slots are busy
+ */
+final class JobDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobDispatcher.class);
+
+    private final IntSupplier dispatchAction;
+    private final BooleanSupplier freeSlotsAvailable;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Object monitor = new Object();
+
+    private volatile boolean running;
+    private volatile boolean waitingForSlot;
+    private boolean signalled;
+    private Thread dispatcherThread;
+
+    JobDispatcher(IntSupplier dispatchAction,
+                  BooleanSupplier freeSlotsAvailable,
+                  long initialBackoffMillis,
+                  long maxBackoffMillis) {
+        this.dispatchAction = dispatchAction;
+        this.freeSlotsAvailable = freeSlotsAvailable;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        dispatcherThread = new Thread(this::dispatchLoop, "job-engine-dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+    }
+
+    synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        wakeUp();
+        try {
+            dispatcherThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Makes the dispatcher poll right away, e.g. when new jobs became available
+     */
+    void wakeUp() {
+        synchronized (monitor) {
+            signalled = true;
+            monitor.notifyAll();
+        }
+    }
+
+    /**
+     * Wakes the dispatcher only when it is parked because all slots are busy
+     */
+    void onSlotReleased() {
+        if (waitingForSlot) {
+            wakeUp();
+        }
+    }
+
+    private void dispatchLoop() {
+        long backoffMillis = 0;
+        while (running) {
+            try {
+                if (!freeSlotsAvailable.getAsBoolean()) {
+                    waitingForSlot = true;
+                    try {
+                        if (!freeSlotsAvailable.getAsBoolean()) {
+                            await(maxBackoffMillis);
+                        }
+                    } finally {
+                        waitingForSlot = false;
+                    }
+                    continue;
+                }
+
+                if (dispatchAction.getAsInt() > 0) {
+                    backoffMillis = 0;
+                    continue;
+                }
+
+                backoffMillis = backoffMillis == 0 ? initialBackoffMillis : Math.min(backoffMillis * 2, maxBackoffMillis);
+                await(withJitter(backoffMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.error("Failure in job dispatcher loop, cause: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void await(long millis) throws InterruptedException {
+        synchronized (monitor) {
+            if (!signalled && running) {
+                monitor.wait(millis);
+            }
+            signalled = false;
+        }
+    }
+
+    private static long withJitter(long backoffMillis) {
+        final long half = backoffMillis / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoffMillis - half + 1);
+    }
+}
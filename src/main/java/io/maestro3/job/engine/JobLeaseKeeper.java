@@ -0,0 +1,96 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.model.IJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps processing leases of jobs claimed by the node alive with one batched heartbeat
+ * and periodically recovers jobs whose owners stopped renewing their leases
+ */
+final class JobLeaseKeeper<O> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobLeaseKeeper.class);
+
+    private final IDbJobService<O> jobService;
+    private final String nodeId;
+    private final long leaseDurationMillis;
+    private final Set<String> inFlightJobIds = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService scheduler;
+
+    JobLeaseKeeper(IDbJobService<O> jobService, String nodeId, long leaseDurationMillis) {
+        this.jobService = jobService;
+        this.nodeId = nodeId;
+        this.leaseDurationMillis = leaseDurationMillis;
+    }
+
+    synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "job-engine-lease-keeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // renew several times per lease, so a single failed heartbeat does not lose the lease
+        final long renewIntervalMillis = Math.max(leaseDurationMillis / 3, 1);
+        scheduler.scheduleWithFixedDelay(this::renewLeases, renewIntervalMillis, renewIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::recoverExpiredJobs, leaseDurationMillis, leaseDurationMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    Date nextLeaseExpiryDate() {
+        return new Date(System.currentTimeMillis() + leaseDurationMillis);
+    }
+
+    void register(final Collection<IJob<O>> jobs) {
+        jobs.forEach(job -> inFlightJobIds.add(job.getId()));
+    }
+
+    void unregister(final IJob<O> job) {
+        inFlightJobIds.remove(job.getId());
+    }
+
+    private void renewLeases() {
+        if (inFlightJobIds.isEmpty()) {
+            return;
+        }
+        final List<String> jobIds = new ArrayList<>(inFlightJobIds);
+        try {
+            jobService.renewLeases(nodeId, jobIds, nextLeaseExpiryDate());
+            LOG.trace("Renewed leases of {} jobs", jobIds.size());
+        } catch (Exception e) {
+            LOG.error("Failed to renew leases of {} jobs, cause: {}", jobIds.size(), e.getMessage());
+        }
+    }
+
+    private void recoverExpiredJobs() {
+        try {
+            final int recoveredJobs = jobService.recoverExpiredJobs(new Date());
+            if (recoveredJobs > 0) {
+                LOG.info("[JobManager]: Recovered {} jobs with expired processing lease", recoveredJobs);
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to recover jobs with expired lease, cause: {}", e.getMessage());
+        }
+    }
+}
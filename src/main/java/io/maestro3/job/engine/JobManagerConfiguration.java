@@ -1,8 +1,20 @@
 package io.maestro3.job.engine;
 
+import io.maestro3.job.engine.limit.IConcurrencyLimit;
+import io.maestro3.job.engine.model.JobStatus;
+import io.maestro3.job.engine.partition.IClusterMembership;
+import io.maestro3.job.engine.scheduling.ISchedulingPolicy;
 import io.maestro3.job.engine.tracker.IJobTrackerManager;
 import io.maestro3.job.engine.util.Assert;
 
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
 
@@ -13,6 +25,27 @@ public class JobManagerConfiguration<O> {
     private final int postponeMinutes;
     private final int jobsLifeTimeDays;
     private final boolean usePrioritySort;
+    private final int readyQueueCapacity;
+    private final int readyQueueLowWatermark;
+    private final long prefetchIdleMillis;
+    private final long pollBackoffInitialMillis;
+    private final long pollBackoffMaxMillis;
+    private final Map<String, Integer> typeConcurrencyLimits;
+    private final IConcurrencyLimit adaptiveConcurrencyLimit;
+    private final Map<String, IConcurrencyLimit> typeAdaptiveConcurrencyLimits;
+    private final int writeBehindBatchSize;
+    private final long writeBehindFlushMillis;
+    private final Set<JobStatus> synchronouslySavedStatuses;
+    private final String nodeId;
+    private final long leaseDurationMillis;
+    private final int partitionCount;
+    private final IClusterMembership membership;
+    private final ISchedulingPolicy schedulingPolicy;
+    private final long timingWheelTickMillis;
+    private final int purgeChunkSize;
+    private final int purgeMaxJobsPerSecond;
+    private final long purgeTimeBudgetMillis;
+    private final Path purgeArchiveDirectory;
     private final ExecutorService executor;
     private final ThreadFactory threadFactory;
     private final IJobExecutionApprover executionApprover;
@@ -24,6 +57,27 @@ public class JobManagerConfiguration<O> {
         this.postponeMinutes = builder.postponeMinutes;
         this.jobsLifeTimeDays = builder.jobsLifeTimeDays;
         this.usePrioritySort = builder.usePrioritySort;
+        this.readyQueueCapacity = builder.readyQueueCapacity;
+        this.readyQueueLowWatermark = builder.readyQueueLowWatermark;
+        this.prefetchIdleMillis = builder.prefetchIdleMillis;
+        this.pollBackoffInitialMillis = builder.pollBackoffInitialMillis;
+        this.pollBackoffMaxMillis = builder.pollBackoffMaxMillis;
+        this.typeConcurrencyLimits = Collections.unmodifiableMap(new HashMap<>(builder.typeConcurrencyLimits));
+        this.adaptiveConcurrencyLimit = builder.adaptiveConcurrencyLimit;
+        this.typeAdaptiveConcurrencyLimits = Collections.unmodifiableMap(new HashMap<>(builder.typeAdaptiveConcurrencyLimits));
+        this.writeBehindBatchSize = builder.writeBehindBatchSize;
+        this.writeBehindFlushMillis = builder.writeBehindFlushMillis;
+        this.synchronouslySavedStatuses = Collections.unmodifiableSet(EnumSet.copyOf(builder.synchronouslySavedStatuses));
+        this.nodeId = Optional.ofNullable(builder.nodeId).orElseGet(() -> UUID.randomUUID().toString());
+        this.leaseDurationMillis = builder.leaseDurationMillis;
+        this.partitionCount = builder.partitionCount;
+        this.membership = builder.membership;
+        this.schedulingPolicy = builder.schedulingPolicy;
+        this.timingWheelTickMillis = builder.timingWheelTickMillis;
+        this.purgeChunkSize = builder.purgeChunkSize;
+        this.purgeMaxJobsPerSecond = builder.purgeMaxJobsPerSecond;
+        this.purgeTimeBudgetMillis = builder.purgeTimeBudgetMillis;
+        this.purgeArchiveDirectory = builder.purgeArchiveDirectory;
         this.executor = builder.executor;
         this.threadFactory = builder.threadFactory;
         this.executionApprover = builder.executionApprover;
@@ -54,6 +108,114 @@ public class JobManagerConfiguration<O> {
         return usePrioritySort;
     }
 
+    public int getReadyQueueCapacity() {
+        return readyQueueCapacity;
+    }
+
+    public int getReadyQueueLowWatermark() {
+        return readyQueueLowWatermark;
+    }
+
+    public long getPrefetchIdleMillis() {
+        return prefetchIdleMillis;
+    }
+
+    public boolean useReadyQueue() {
+        return readyQueueCapacity > 0;
+    }
+
+    public long getPollBackoffInitialMillis() {
+        return pollBackoffInitialMillis;
+    }
+
+    public long getPollBackoffMaxMillis() {
+        return pollBackoffMaxMillis;
+    }
+
+    public Map<String, Integer> getTypeConcurrencyLimits() {
+        return typeConcurrencyLimits;
+    }
+
+    public IConcurrencyLimit getAdaptiveConcurrencyLimit() {
+        return adaptiveConcurrencyLimit;
+    }
+
+    public Map<String, IConcurrencyLimit> getTypeAdaptiveConcurrencyLimits() {
+        return typeAdaptiveConcurrencyLimits;
+    }
+
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+
+    public long getWriteBehindFlushMillis() {
+        return writeBehindFlushMillis;
+    }
+
+    public boolean useWriteBehind() {
+        return writeBehindBatchSize > 0;
+    }
+
+    public Set<JobStatus> getSynchronouslySavedStatuses() {
+        return synchronouslySavedStatuses;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getLeaseDurationMillis() {
+        return leaseDurationMillis;
+    }
+
+    public boolean useProcessingLease() {
+        return leaseDurationMillis > 0;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public IClusterMembership getMembership() {
+        return membership;
+    }
+
+    public boolean usePartitioning() {
+        return partitionCount > 0;
+    }
+
+    public ISchedulingPolicy getSchedulingPolicy() {
+        return schedulingPolicy;
+    }
+
+    public long getTimingWheelTickMillis() {
+        return timingWheelTickMillis;
+    }
+
+    public boolean useTimingWheel() {
+        return timingWheelTickMillis > 0;
+    }
+
+    public int getPurgeChunkSize() {
+        return purgeChunkSize;
+    }
+
+    public int getPurgeMaxJobsPerSecond() {
+        return purgeMaxJobsPerSecond;
+    }
+
+    public long getPurgeTimeBudgetMillis() {
+        return purgeTimeBudgetMillis;
+    }
+
+    public Path getPurgeArchiveDirectory() {
+        return purgeArchiveDirectory;
+    }
+
+    public boolean useChunkedPurge() {
+        return purgeChunkSize > 0;
+    }
+
     public ExecutorService getExecutor() {
         return executor;
     }
@@ -71,11 +233,36 @@ public class JobManagerConfiguration<O> {
     }
 
     public static final class Builder<P> {
+        private static final long DEFAULT_PREFETCH_IDLE_MILLIS = 1000L;
+        private static final long DEFAULT_POLL_BACKOFF_INITIAL_MILLIS = 100L;
+        private static final long DEFAULT_POLL_BACKOFF_MAX_MILLIS = 30_000L;
+
         private int maxConcurrentTasks;
         private int postponeCount;
         private int postponeMinutes;
         private int jobsLifeTimeDays;
         private boolean usePrioritySort;
+        private int readyQueueCapacity;
+        private int readyQueueLowWatermark;
+        private long prefetchIdleMillis = DEFAULT_PREFETCH_IDLE_MILLIS;
+        private long pollBackoffInitialMillis = DEFAULT_POLL_BACKOFF_INITIAL_MILLIS;
+        private long pollBackoffMaxMillis = DEFAULT_POLL_BACKOFF_MAX_MILLIS;
+        private final Map<String, Integer> typeConcurrencyLimits = new HashMap<>();
+        private IConcurrencyLimit adaptiveConcurrencyLimit;
+        private final Map<String, IConcurrencyLimit> typeAdaptiveConcurrencyLimits = new HashMap<>();
+        private int writeBehindBatchSize;
+        private long writeBehindFlushMillis;
+        private Set<JobStatus> synchronouslySavedStatuses = EnumSet.of(JobStatus.FAILED);
+        private String nodeId;
+        private long leaseDurationMillis;
+        private int partitionCount;
+        private IClusterMembership membership;
+        private ISchedulingPolicy schedulingPolicy;
+        private long timingWheelTickMillis;
+        private int purgeChunkSize;
+        private int purgeMaxJobsPerSecond;
+        private long purgeTimeBudgetMillis;
+        private Path purgeArchiveDirectory;
         private ExecutorService executor;
         private ThreadFactory threadFactory;
         private IJobExecutionApprover executionApprover;
@@ -106,6 +293,163 @@ public class JobManagerConfiguration<O> {
             return this;
         }
 
+        /**
+         * Enables local ready-queue of prefetched jobs
+         *
+         * @param capacity     max number of claimed jobs kept locally
+         * @param lowWatermark queue size at which background fetcher claims more jobs
+         */
+        public Builder<P> withReadyQueue(int capacity, int lowWatermark) {
+            this.readyQueueCapacity = capacity;
+            this.readyQueueLowWatermark = lowWatermark;
+            return this;
+        }
+
+        /**
+         * @param prefetchIdleMillis delay before next prefetch attempt when store has no jobs for run
+         */
+        public Builder<P> withPrefetchIdleMillis(long prefetchIdleMillis) {
+            this.prefetchIdleMillis = prefetchIdleMillis;
+            return this;
+        }
+
+        /**
+         * Configures backoff of the built-in dispatcher when there are no jobs for run
+         *
+         * @param initialMillis delay after the first empty poll
+         * @param maxMillis     upper bound of the delay, it doubles after each subsequent empty poll
+         */
+        public Builder<P> withPollBackoff(long initialMillis, long maxMillis) {
+            this.pollBackoffInitialMillis = initialMillis;
+            this.pollBackoffMaxMillis = maxMillis;
+            return this;
+        }
+
+        /**
+         * Limits number of concurrently running jobs of the given processor type,
+         * overrides {@link io.maestro3.job.engine.model.IJobDefinition#getMaxConcurrentTasks()}
+         */
+        public Builder<P> withTypeConcurrencyLimit(String processorType, int maxConcurrentTasks) {
+            this.typeConcurrencyLimits.put(processorType, maxConcurrentTasks);
+            return this;
+        }
+
+        /**
+         * Adapts number of concurrently running jobs to their latency and errors, the limit never exceeds max concurrent tasks
+         *
+         * @param concurrencyLimit limit, e.g. {@link io.maestro3.job.engine.limit.AimdConcurrencyLimit}
+         */
+        public Builder<P> withAdaptiveConcurrencyLimit(IConcurrencyLimit concurrencyLimit) {
+            this.adaptiveConcurrencyLimit = concurrencyLimit;
+            return this;
+        }
+
+        /**
+         * Adapts number of concurrently running jobs of the given processor type, overrides fixed limit of the type
+         *
+         * @param concurrencyLimit limit used by this type only
+         */
+        public Builder<P> withTypeAdaptiveConcurrencyLimit(String processorType, IConcurrencyLimit concurrencyLimit) {
+            this.typeAdaptiveConcurrencyLimits.put(processorType, concurrencyLimit);
+            return this;
+        }
+
+        /**
+         * Enables write-behind of job updates, updates are saved in batches by background flusher.
+         * Requires {@link #withProcessingLease(long)}, a job whose update failed to save is recovered when its lease expires
+         *
+         * @param batchSize           max number of jobs saved at once, full batch is flushed right away
+         * @param flushIntervalMillis max time an update waits for the batch to fill up
+         */
+        public Builder<P> withWriteBehind(int batchSize, long flushIntervalMillis) {
+            this.writeBehindBatchSize = batchSize;
+            this.writeBehindFlushMillis = flushIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Statuses which are always saved synchronously when write-behind is enabled, FAILED by default
+         */
+        public Builder<P> withSynchronouslySavedStatuses(Set<JobStatus> statuses) {
+            this.synchronouslySavedStatuses = statuses.isEmpty() ? EnumSet.noneOf(JobStatus.class) : EnumSet.copyOf(statuses);
+            return this;
+        }
+
+        /**
+         * @param nodeId id of the node the manager runs on, random id is generated if not specified
+         */
+        public Builder<P> withNodeId(String nodeId) {
+            this.nodeId = nodeId;
+            return this;
+        }
+
+        /**
+         * Enables processing leases: claimed jobs are owned by the node until lease expiry date, which is renewed
+         * while jobs are in flight. Jobs with expired leases are returned to PENDING by recovery pass
+         *
+         * @param leaseDurationMillis time after which job of unresponsive node can be recovered
+         */
+        public Builder<P> withProcessingLease(long leaseDurationMillis) {
+            this.leaseDurationMillis = leaseDurationMillis;
+            return this;
+        }
+
+        /**
+         * Enables partition-aware claiming: node claims jobs of partitions assigned to it first
+         * and steals jobs of other partitions only when its own partitions have no jobs for run.
+         * Jobs without partition are claimed by every node together with its own partitions
+         *
+         * @param partitionCount number of partitions, jobs get them by {@link io.maestro3.job.engine.partition.JobPartitions}
+         * @param membership     membership of the cluster, partitions are rebalanced when nodes join or leave
+         */
+        public Builder<P> withPartitioning(int partitionCount, IClusterMembership membership) {
+            this.partitionCount = partitionCount;
+            this.membership = membership;
+            return this;
+        }
+
+        /**
+         * @param schedulingPolicy decides which jobs are claimed, {@link #withPrioritySort(boolean)} is used when not specified
+         */
+        public Builder<P> withSchedulingPolicy(ISchedulingPolicy schedulingPolicy) {
+            this.schedulingPolicy = schedulingPolicy;
+            return this;
+        }
+
+        /**
+         * Enables local timing wheel of postponed jobs: when a job postponed by this node is due,
+         * jobs of its type are claimed right away instead of on the next poll
+         *
+         * @param tickMillis precision of due times
+         */
+        public Builder<P> withTimingWheel(long tickMillis) {
+            this.timingWheelTickMillis = tickMillis;
+            return this;
+        }
+
+        /**
+         * Enables chunked purge of executed jobs by {@link IJobManager#clearExecutedJobs()}, requires store support of
+         * {@link IDbJobService#findExecutedJobs(java.util.Date, int)}, otherwise jobs are deleted at once
+         *
+         * @param chunkSize        max number of jobs deleted by one query
+         * @param maxJobsPerSecond max rate of deletion, 0 for no limit
+         * @param timeBudgetMillis max duration of one purge, remaining jobs are deleted by the next purge
+         */
+        public Builder<P> withChunkedPurge(int chunkSize, int maxJobsPerSecond, long timeBudgetMillis) {
+            this.purgeChunkSize = chunkSize;
+            this.purgeMaxJobsPerSecond = maxJobsPerSecond;
+            this.purgeTimeBudgetMillis = timeBudgetMillis;
+            return this;
+        }
+
+        /**
+         * @param directory directory of gzip archives which purged jobs are written to before deletion
+         */
+        public Builder<P> withPurgeArchive(Path directory) {
+            this.purgeArchiveDirectory = directory;
+            return this;
+        }
+
         public Builder<P> withExecutor(ExecutorService executor) {
             this.executor = executor;
             return this;
@@ -131,6 +475,38 @@ public class JobManagerConfiguration<O> {
             Assert.positiveInt(postponeCount, "postponeCount");
             Assert.positiveInt(postponeMinutes, "postponeMinutes");
             Assert.positiveInt(jobsLifeTimeDays, "jobsLifeTimeDays");
+            if (readyQueueCapacity != 0) {
+                Assert.positiveInt(readyQueueCapacity, "readyQueueCapacity");
+                Assert.inRange(readyQueueLowWatermark, 0, readyQueueCapacity - 1, "readyQueueLowWatermark");
+                Assert.inRange(prefetchIdleMillis, 1, Long.MAX_VALUE, "prefetchIdleMillis");
+            }
+            if (writeBehindBatchSize != 0) {
+                Assert.positiveInt(writeBehindBatchSize, "writeBehindBatchSize");
+                Assert.inRange(writeBehindFlushMillis, 1, Long.MAX_VALUE, "writeBehindFlushMillis");
+                if (leaseDurationMillis <= 0) {
+                    throw new IllegalArgumentException("write-behind requires processing lease");
+                }
+            }
+            Assert.inRange(leaseDurationMillis, 0, Long.MAX_VALUE, "leaseDurationMillis");
+            Assert.inRange(timingWheelTickMillis, 0, Long.MAX_VALUE, "timingWheelTickMillis");
+            if (partitionCount != 0) {
+                Assert.positiveInt(partitionCount, "partitionCount");
+                Assert.notNull(membership, "membership must not be null");
+            }
+            if (purgeChunkSize != 0) {
+                Assert.positiveInt(purgeChunkSize, "purgeChunkSize");
+                Assert.inRange(purgeMaxJobsPerSecond, 0, Integer.MAX_VALUE, "purgeMaxJobsPerSecond");
+                Assert.inRange(purgeTimeBudgetMillis, 1, Long.MAX_VALUE, "purgeTimeBudgetMillis");
+            } else if (purgeArchiveDirectory != null) {
+                throw new IllegalArgumentException("purge archive requires chunked purge");
+            }
+            typeConcurrencyLimits.forEach((type, limit) -> Assert.positiveInt(limit, "maxConcurrentTasks of " + type));
+            typeAdaptiveConcurrencyLimits.forEach((type, limit) -> Assert.notNull(limit, "concurrency limit of " + type + " must not be null"));
+            if (adaptiveConcurrencyLimit != null && typeAdaptiveConcurrencyLimits.containsValue(adaptiveConcurrencyLimit)) {
+                throw new IllegalArgumentException("global and type adaptive concurrency limits must be different instances");
+            }
+            Assert.inRange(pollBackoffMaxMillis, 1, Long.MAX_VALUE, "pollBackoffMaxMillis");
+            Assert.inRange(pollBackoffInitialMillis, 1, pollBackoffMaxMillis, "pollBackoffInitialMillis");
             Assert.exactlyOneSpecified("exactly one must be specified: executor or thread factory", executor, threadFactory);
 
             return new JobManagerConfiguration<>(this);
@@ -0,0 +1,74 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.partition.IClusterMembership;
+import io.maestro3.job.engine.partition.JobPartitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps partitions owned by the node up to date with cluster membership. Every node owns {@link IJob#NO_PARTITION},
+ * so jobs created without a partition, e.g. before partitioning was enabled, are still claimed
+ */
+final class JobPartitionAssignment {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobPartitionAssignment.class);
+
+    private final String nodeId;
+    private final int partitionCount;
+    private final IClusterMembership membership;
+    private final Runnable rebalancer = this::rebalance;
+
+    private volatile Set<Integer> ownedPartitions = Collections.emptySet();
+    private volatile Set<Integer> foreignPartitions = Collections.emptySet();
+
+    JobPartitionAssignment(String nodeId, int partitionCount, IClusterMembership membership) {
+        this.nodeId = nodeId;
+        this.partitionCount = partitionCount;
+        this.membership = membership;
+    }
+
+    void start() {
+        membership.addListener(rebalancer);
+        membership.join(nodeId);
+        rebalance();
+    }
+
+    void shutdown() {
+        membership.removeListener(rebalancer);
+        membership.leave(nodeId);
+    }
+
+    /**
+     * @return partitions assigned to the node and {@link IJob#NO_PARTITION}
+     */
+    Set<Integer> getOwnedPartitions() {
+        return ownedPartitions;
+    }
+
+    /**
+     * @return partitions owned by other nodes, jobs are stolen from them when own partitions have no jobs
+     */
+    Set<Integer> getForeignPartitions() {
+        return foreignPartitions;
+    }
+
+    private synchronized void rebalance() {
+        final Set<Integer> owned = new HashSet<>(JobPartitions.ownedPartitions(nodeId, membership.getMembers(), partitionCount));
+        final int assigned = owned.size();
+        owned.add(IJob.NO_PARTITION);
+        final Set<Integer> foreign = new HashSet<>();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            if (!owned.contains(partition)) {
+                foreign.add(partition);
+            }
+        }
+        ownedPartitions = Collections.unmodifiableSet(owned);
+        foreignPartitions = Collections.unmodifiableSet(foreign);
+        LOG.info("[JobManager]: Node {} owns {} of {} partitions", nodeId, assigned, partitionCount);
+    }
+}
@@ -0,0 +1,201 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Removes success jobs in chunks of {@link IDbJobService#findExecutedJobs(Date, int)} and
+ * {@link IDbJobService#deleteExecutedJobs(java.util.Collection)}, so a large backlog does not turn into one long delete.
+ * Chunks are paced to the configured rate and a run stops when its time budget is spent. Oldest jobs are always
+ * removed first, so the next run continues where the previous one stopped.
+ * <p>
+ * When archive directory is configured, every chunk is appended to a gzip file of the run and flushed to disk
+ * before the chunk is deleted. Stores without chunked purge fall back to deleting all executed jobs at once,
+ * unless archive is configured: then executed jobs are kept, since they could not be archived
+ */
+final class JobPurger<O> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobPurger.class);
+
+    private static final String ARCHIVE_FILE_PATTERN = "'executed-jobs-'yyyyMMdd-HHmmss-SSS'.jsonl.gz'";
+
+    private final IDbJobService<O> jobService;
+    private final int jobsLifeTimeDays;
+    private final int chunkSize;
+    private final int maxJobsPerSecond;
+    private final long timeBudgetMillis;
+    private final Path archiveDirectory;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile boolean chunkedDeleteSupported = true;
+
+    JobPurger(IDbJobService<O> jobService, int jobsLifeTimeDays, int chunkSize, int maxJobsPerSecond,
+              long timeBudgetMillis, Path archiveDirectory) {
+        this.jobService = jobService;
+        this.jobsLifeTimeDays = jobsLifeTimeDays;
+        this.chunkSize = chunkSize;
+        this.maxJobsPerSecond = maxJobsPerSecond;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.archiveDirectory = archiveDirectory;
+    }
+
+    /**
+     * Runs one purge pass, concurrent calls are skipped
+     *
+     * @return number of removed jobs
+     */
+    int purge() {
+        if (!running.compareAndSet(false, true)) {
+            LOG.info("[JobManager]: Purge of executed jobs is already running");
+            return 0;
+        }
+        try {
+            if (!chunkedDeleteSupported) {
+                return deleteAtOnce();
+            }
+            return purgeChunks();
+        } catch (UnsupportedOperationException e) {
+            chunkedDeleteSupported = false;
+            if (archiveDirectory != null) {
+                LOG.error("[JobManager]: Store does not support chunked purge, executed jobs can not be archived and are not deleted. Cause: {}",
+                        e.getMessage());
+                return 0;
+            }
+            LOG.warn("[JobManager]: Store does not support chunked purge, executed jobs are deleted at once. Cause: {}", e.getMessage());
+            return deleteAtOnce();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Jobs deleted at once can not be archived, so nothing is deleted when archive is configured
+     */
+    private int deleteAtOnce() {
+        if (archiveDirectory != null) {
+            return 0;
+        }
+        return jobService.deleteExecutedJobs(jobsLifeTimeDays);
+    }
+
+    private int purgeChunks() {
+        final long startTime = System.currentTimeMillis();
+        final long deadline = startTime + timeBudgetMillis;
+        final Date processedBefore = new Date(startTime - TimeUnit.DAYS.toMillis(jobsLifeTimeDays));
+        int removed = 0;
+        boolean drained = false;
+        try (Archive archive = archiveDirectory != null ? new Archive(archiveDirectory, startTime) : null) {
+            while (System.currentTimeMillis() < deadline) {
+                final List<IJob<O>> jobs = jobService.findExecutedJobs(processedBefore, chunkSize);
+                if (jobs.isEmpty()) {
+                    drained = true;
+                    break;
+                }
+                if (archive != null) {
+                    archive.write(jobs);
+                }
+                final List<String> jobIds = new ArrayList<>(jobs.size());
+                for (final IJob<O> job : jobs) {
+                    jobIds.add(job.getId());
+                }
+                final int removedChunk = jobService.deleteExecutedJobs(jobIds);
+                removed += removedChunk;
+                if (removedChunk == 0 || jobs.size() < chunkSize) {
+                    drained = true;
+                    break;
+                }
+                if (!pace(startTime, removed, deadline)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("[JobManager]: Failed to archive executed jobs, purge is stopped. Cause: {}", e.getMessage());
+        }
+        if (!drained) {
+            LOG.info("[JobManager]: Purge of executed jobs stopped after {} ms, remaining jobs will be removed by the next run",
+                    System.currentTimeMillis() - startTime);
+        }
+        return removed;
+    }
+
+    /**
+     * Waits until removed jobs fit the rate
+     *
+     * @return false if the run should stop
+     */
+    private boolean pace(long startTime, int removed, long deadline) {
+        if (maxJobsPerSecond <= 0) {
+            return true;
+        }
+        final long earliestNextChunk = startTime + removed * 1000L / maxJobsPerSecond;
+        final long delay = earliestNextChunk - System.currentTimeMillis();
+        if (delay <= 0) {
+            return true;
+        }
+        if (earliestNextChunk >= deadline) {
+            return false;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Gzip file with one json document per line, created on the first write
+     */
+    private static final class Archive implements AutoCloseable {
+
+        private final Path file;
+        private FileOutputStream fileStream;
+        private BufferedWriter writer;
+
+        Archive(Path directory, long startTime) {
+            final SimpleDateFormat format = new SimpleDateFormat(ARCHIVE_FILE_PATTERN);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            this.file = directory.resolve(format.format(new Date(startTime)));
+        }
+
+        void write(List<? extends IJob<?>> jobs) throws IOException {
+            if (writer == null) {
+                Files.createDirectories(file.getParent());
+                fileStream = new FileOutputStream(file.toFile());
+                writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(fileStream, true), StandardCharsets.UTF_8));
+            }
+            for (final IJob<?> job : jobs) {
+                writer.write(JsonUtils.convertToJson(job));
+                writer.newLine();
+            }
+            writer.flush();
+            fileStream.getFD().sync();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.model.IJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded local queue of already claimed jobs. Background fetcher refills the queue
+ * each time it drops to the low watermark, so workers do not wait for a store round-trip
+ */
+final class JobReadyQueue<O> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobReadyQueue.class);
+
+    private final BlockingQueue<IJob<O>> queue;
+    private final int capacity;
+    private final int lowWatermark;
+    private final long idleMillis;
+    private final IntFunction<List<IJob<O>>> jobsFetcher;
+    private final Consumer<List<IJob<O>>> jobsReleaser;
+    private final Runnable jobsAvailableListener;
+    private final Object refillMonitor = new Object();
+
+    private volatile boolean running;
+    private Thread fetcherThread;
+
+    JobReadyQueue(int capacity,
+                  int lowWatermark,
+                  long idleMillis,
+                  IntFunction<List<IJob<O>>> jobsFetcher,
+                  Consumer<List<IJob<O>>> jobsReleaser,
+                  Runnable jobsAvailableListener) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.lowWatermark = lowWatermark;
+        this.idleMillis = idleMillis;
+        this.jobsFetcher = jobsFetcher;
+        this.jobsReleaser = jobsReleaser;
+        this.jobsAvailableListener = jobsAvailableListener;
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        fetcherThread = new Thread(this::fetchLoop, "job-engine-prefetcher");
+        fetcherThread.setDaemon(true);
+        fetcherThread.start();
+    }
+
+    /**
+     * Stops the fetcher and hands all prefetched jobs back to the store
+     */
+    synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        fetcherThread.interrupt();
+        try {
+            fetcherThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        final List<IJob<O>> prefetchedJobs = new ArrayList<>(queue.size());
+        queue.drainTo(prefetchedJobs);
+        if (!prefetchedJobs.isEmpty()) {
+            LOG.info("Releasing {} prefetched jobs", prefetchedJobs.size());
+            jobsReleaser.accept(prefetchedJobs);
+        }
+    }
+
+    /**
+     * Takes prefetched jobs in queue order, jobs of types which have no budget left keep their place in the queue
+     *
+     * @param typeBudgets free slots of types with a concurrency limit, decreased by taken jobs.
+     *                    Jobs of types which are not in the map are taken without limit
+     */
+    List<IJob<O>> poll(Map<String, Integer> typeBudgets, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        final List<IJob<O>> jobs = new ArrayList<>(Math.min(limit, capacity));
+        if (typeBudgets.isEmpty()) {
+            queue.drainTo(jobs, limit);
+        } else {
+            for (final IJob<O> job : queue) {
+                if (jobs.size() >= limit) {
+                    break;
+                }
+                final Integer budget = typeBudgets.get(job.getType());
+                // job may be taken by a concurrent poll after it was seen by the iterator
+                if ((budget == null || budget > 0) && queue.remove(job)) {
+                    jobs.add(job);
+                    if (budget != null) {
+                        typeBudgets.put(job.getType(), budget - 1);
+                    }
+                }
+            }
+        }
+        if (queue.size() <= lowWatermark) {
+            signalRefill();
+        }
+        return jobs;
+    }
+
+    /**
+     * Takes prefetched jobs of the given type only, other jobs keep their place in the queue
+     */
+    List<IJob<O>> poll(String processorType, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        final List<IJob<O>> jobs = new ArrayList<>(Math.min(limit, capacity));
+        for (final IJob<O> job : queue) {
+            if (jobs.size() >= limit) {
+                break;
+            }
+            // job may be taken by a concurrent poll after it was seen by the iterator
+            if (processorType.equals(job.getType()) && queue.remove(job)) {
+                jobs.add(job);
+            }
+        }
+        if (queue.size() <= lowWatermark) {
+            signalRefill();
+        }
+        return jobs;
+    }
+
+    /**
+     * @return number of prefetched jobs of every type in the queue
+     */
+    Map<String, Integer> countByType() {
+        final Map<String, Integer> counts = new HashMap<>();
+        for (final IJob<O> job : queue) {
+            counts.merge(job.getType(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Puts back a job which was polled but can not be run yet, so it is not released to the store and claimed again
+     *
+     * @return false if the queue is stopped or full, the caller releases the job then
+     */
+    synchronized boolean requeue(IJob<O> job) {
+        return running && queue.offer(job);
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    /**
+     * Makes the fetcher claim jobs right away instead of waiting out its idle delay
+     */
+    void wakeUp() {
+        signalRefill();
+    }
+
+    private void signalRefill() {
+        synchronized (refillMonitor) {
+            refillMonitor.notifyAll();
+        }
+    }
+
+    private void fetchLoop() {
+        while (running) {
+            try {
+                final int size = queue.size();
+                if (size > lowWatermark) {
+                    awaitRefill(false);
+                    continue;
+                }
+
+                final List<IJob<O>> jobs = jobsFetcher.apply(capacity - size);
+                if (!running) {
+                    // shutdown started while jobs were claimed, hand them back right away
+                    jobsReleaser.accept(jobs);
+                    return;
+                }
+                enqueue(jobs);
+                if (jobs.isEmpty()) {
+                    awaitRefill(true);
+                } else {
+                    jobsAvailableListener.run();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.error("Failed to prefetch jobs, cause: {}", e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * Adds fetched jobs to the queue, jobs which do not fit after concurrent requeues are handed back to the store
+     */
+    private void enqueue(List<IJob<O>> jobs) {
+        final List<IJob<O>> overflowJobs = new ArrayList<>();
+        for (final IJob<O> job : jobs) {
+            if (!queue.offer(job)) {
+                overflowJobs.add(job);
+            }
+        }
+        if (!overflowJobs.isEmpty()) {
+            jobsReleaser.accept(overflowJobs);
+        }
+    }
+
+    private void awaitRefill(boolean storeDrained) throws InterruptedException {
+        synchronized (refillMonitor) {
+            if (running && (storeDrained || queue.size() > lowWatermark)) {
+                refillMonitor.wait(idleMillis);
+            }
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(idleMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.maestro3.job.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel of due times of locally postponed jobs. Every level has 64 buckets, a bucket of the next
+ * level spans a whole rotation of the previous one, so scheduling and expiry are O(1) regardless of the delay.
+ * When bucket of an upper level comes up its entries are cascaded to lower levels, bucket of the lowest level
+ * reports number of due jobs per type, so the manager can claim exactly these types when they are due
+ */
+final class JobTimingWheel {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobTimingWheel.class);
+
+    private static final int LEVEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << LEVEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    // with 1 second tick the wheel covers 2^24 seconds, later entries wait in the top level and are cascaded again
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Consumer<Map<String, Integer>> dueJobsListener;
+    // guarded by this, buckets of every level
+    private final List<List<Entry>> buckets = new ArrayList<>(LEVELS * WHEEL_SIZE);
+
+    private long currentTick;
+    private ScheduledExecutorService scheduler;
+
+    JobTimingWheel(long tickMillis, Consumer<Map<String, Integer>> dueJobsListener) {
+        this.tickMillis = tickMillis;
+        this.dueJobsListener = dueJobsListener;
+        for (int i = 0; i < LEVELS * WHEEL_SIZE; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "job-engine-timing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> advance(System.currentTimeMillis()), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    /**
+     * @param dueTimeMillis time after which the job of the type can be claimed
+     */
+    void schedule(String processorType, long dueTimeMillis) {
+        // rounded up, so the job is never reported before it is due
+        final long dueTick = (dueTimeMillis + tickMillis - 1) / tickMillis;
+        synchronized (this) {
+            add(new Entry(processorType, dueTick));
+        }
+    }
+
+    private void add(Entry entry) {
+        // entry which is already due is reported on the next tick
+        final long dueTick = Math.max(entry.dueTick, currentTick + 1);
+        int level = 0;
+        while (level < LEVELS - 1 && (dueTick >>> (LEVEL_BITS * (level + 1))) != (currentTick >>> (LEVEL_BITS * (level + 1)))) {
+            level++;
+        }
+        bucket(level, (int) ((dueTick >>> (LEVEL_BITS * level)) & WHEEL_MASK)).add(entry);
+    }
+
+    private List<Entry> bucket(int level, int index) {
+        return buckets.get(level * WHEEL_SIZE + index);
+    }
+
+    /**
+     * Expires every tick up to the given time and reports jobs which became due
+     */
+    void advance(long nowMillis) {
+        try {
+            final Map<String, Integer> dueJobs = new HashMap<>();
+            synchronized (this) {
+                final long nowTick = nowMillis / tickMillis;
+                while (currentTick < nowTick) {
+                    currentTick++;
+                    cascade();
+                    final List<Entry> expired = bucket(0, (int) (currentTick & WHEEL_MASK));
+                    for (final Entry entry : expired) {
+                        dueJobs.merge(entry.processorType, 1, Integer::sum);
+                    }
+                    expired.clear();
+                }
+            }
+            if (!dueJobs.isEmpty()) {
+                dueJobsListener.accept(dueJobs);
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to process due jobs, cause: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves entries of upper level buckets which start at the current tick to lower levels, highest level first
+     */
+    private void cascade() {
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (LEVEL_BITS * level)) - 1)) != 0) {
+                continue;
+            }
+            final List<Entry> bucket = bucket(level, (int) ((currentTick >>> (LEVEL_BITS * level)) & WHEEL_MASK));
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            final List<Entry> entries = new ArrayList<>(bucket);
+            bucket.clear();
+            for (final Entry entry : entries) {
+                if (entry.dueTick <= currentTick) {
+                    bucket(0, (int) (currentTick & WHEEL_MASK)).add(entry);
+                } else {
+                    add(entry);
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final String processorType;
+        private final long dueTick;
+
+        Entry(String processorType, long dueTick) {
+            this.processorType = processorType;
+            this.dueTick = dueTick;
+        }
+    }
+}
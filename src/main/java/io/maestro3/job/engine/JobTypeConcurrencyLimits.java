@@ -0,0 +1,130 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.limit.IConcurrencyLimit;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Per processor type bulkheads, keeps slow job types from taking every execution slot
+ */
+final class JobTypeConcurrencyLimits {
+
+    private final Map<String, Integer> limits;
+    private final Map<String, IConcurrencyLimit> adaptiveLimits;
+    private final Map<String, AtomicInteger> runningJobs;
+
+    /**
+     * @param limits         fixed limits per type
+     * @param adaptiveLimits adaptive limits per type, they override fixed limits of their types
+     */
+    JobTypeConcurrencyLimits(Map<String, Integer> limits, Map<String, IConcurrencyLimit> adaptiveLimits, Set<String> jobTypes) {
+        final Map<String, Integer> fixedLimits = new HashMap<>(limits);
+        fixedLimits.keySet().removeAll(adaptiveLimits.keySet());
+        this.limits = Collections.unmodifiableMap(fixedLimits);
+        this.adaptiveLimits = Collections.unmodifiableMap(new HashMap<>(adaptiveLimits));
+        final Map<String, AtomicInteger> counters = new HashMap<>(jobTypes.size());
+        jobTypes.forEach(jobType -> counters.put(jobType, new AtomicInteger()));
+        this.runningJobs = Collections.unmodifiableMap(counters);
+    }
+
+    boolean isEmpty() {
+        return limits.isEmpty() && adaptiveLimits.isEmpty();
+    }
+
+    /**
+     * @return adaptive limit of the type, null if the type has a fixed limit or no limit
+     */
+    IConcurrencyLimit adaptiveLimit(String jobType) {
+        return adaptiveLimits.get(jobType);
+    }
+
+    /**
+     * @return types which have at least one free slot
+     */
+    Set<String> availableTypes(Set<String> jobTypes) {
+        if (isEmpty()) {
+            return jobTypes;
+        }
+        return jobTypes.stream()
+                .filter(jobType -> freeSlots(jobType) > 0)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return max number of jobs of given types which can be started now, {@link Integer#MAX_VALUE} if any type is unbounded
+     */
+    int freeSlots(Set<String> jobTypes) {
+        long freeSlots = 0;
+        for (final String jobType : jobTypes) {
+            freeSlots += freeSlots(jobType);
+        }
+        return (int) Math.min(freeSlots, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return free slots of the given types which have a limit, types without limit are not included
+     */
+    Map<String, Integer> claimBudgets(Set<String> jobTypes) {
+        if (isEmpty()) {
+            return new HashMap<>();
+        }
+        final Map<String, Integer> budgets = new HashMap<>();
+        for (final String jobType : jobTypes) {
+            final Integer limit = limit(jobType);
+            if (limit != null) {
+                budgets.put(jobType, Math.max(limit - running(jobType), 0));
+            }
+        }
+        return budgets;
+    }
+
+    int freeSlots(String jobType) {
+        final Integer limit = limit(jobType);
+        if (limit == null) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(limit - running(jobType), 0);
+    }
+
+    int running(String jobType) {
+        final AtomicInteger counter = runningJobs.get(jobType);
+        return counter == null ? 0 : counter.get();
+    }
+
+    boolean tryAcquire(String jobType) {
+        final AtomicInteger counter = runningJobs.get(jobType);
+        if (counter == null) {
+            return true;
+        }
+        final Integer limit = limit(jobType);
+        if (limit == null) {
+            counter.incrementAndGet();
+            return true;
+        }
+        int current;
+        do {
+            current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private Integer limit(String jobType) {
+        final IConcurrencyLimit adaptiveLimit = adaptiveLimits.get(jobType);
+        return adaptiveLimit != null ? Integer.valueOf(adaptiveLimit.getLimit()) : limits.get(jobType);
+    }
+
+    void release(String jobType) {
+        final AtomicInteger counter = runningJobs.get(jobType);
+        if (counter != null) {
+            counter.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.model.IJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Groups job updates into {@link IDbJobService#saveJobs(Collection)} batches which are flushed
+ * by size or by time, so workers do not wait for a store round-trip per job.
+ * Saved listener is notified after the batch of the job is written, e.g. to stop renewing its lease.
+ * Write-behind is used with processing leases only, a job which failed to save stays PROCESSING in the store
+ * until its lease expires and it is recovered
+ */
+final class JobWriteBehind<O> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobWriteBehind.class);
+
+    // pending updates above this number of batches are saved by the caller to apply backpressure
+    private static final int MAX_PENDING_BATCHES = 16;
+
+    private final IDbJobService<O> jobService;
+    private final BlockingQueue<IJob<O>> pendingJobs;
+    private final Set<String> pendingJobIds = ConcurrentHashMap.newKeySet();
+    private final Consumer<IJob<O>> savedListener;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Object flushMonitor = new Object();
+    // offers hold the read lock, so no update is accepted after shutdown has taken the final flush
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+    private Thread flusherThread;
+
+    JobWriteBehind(IDbJobService<O> jobService, int batchSize, long flushIntervalMillis, Consumer<IJob<O>> savedListener) {
+        this.jobService = jobService;
+        this.savedListener = savedListener;
+        this.pendingJobs = new LinkedBlockingQueue<>(batchSize * MAX_PENDING_BATCHES);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flusherThread = new Thread(this::flushLoop, "job-engine-write-behind");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+    }
+
+    /**
+     * Stops the flusher and saves all pending updates
+     */
+    synchronized void shutdown() {
+        stateLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        signalFlush();
+        try {
+            flusherThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * @return false if update was not accepted and should be saved by the caller
+     */
+    boolean offer(final IJob<O> job) {
+        stateLock.readLock().lock();
+        try {
+            if (!running) {
+                return false;
+            }
+            pendingJobIds.add(job.getId());
+            if (!pendingJobs.offer(job)) {
+                pendingJobIds.remove(job.getId());
+                return false;
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        if (pendingJobs.size() >= batchSize) {
+            signalFlush();
+        }
+        return true;
+    }
+
+    /**
+     * @return true if update of the job is accepted but not saved yet
+     */
+    boolean isPending(final IJob<O> job) {
+        return pendingJobIds.contains(job.getId());
+    }
+
+    private void signalFlush() {
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                synchronized (flushMonitor) {
+                    if (running && pendingJobs.size() < batchSize) {
+                        flushMonitor.wait(flushIntervalMillis);
+                    }
+                }
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.error("Failure in job write-behind loop, cause: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void flush() {
+        final List<IJob<O>> batch = new ArrayList<>(batchSize);
+        while (pendingJobs.drainTo(batch, batchSize) > 0) {
+            saveBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void saveBatch(final List<IJob<O>> batch) {
+        // the same job may be updated several times before flush, its latest state is saved once
+        final Set<IJob<O>> jobs = Collections.newSetFromMap(new IdentityHashMap<>(batch.size()));
+        jobs.addAll(batch);
+        try {
+            jobService.saveJobs(jobs);
+        } catch (Exception e) {
+            LOG.error("Failed to save batch of {} jobs, saving one by one. Cause: {}", jobs.size(), e.getMessage());
+            for (final IJob<O> job : jobs) {
+                try {
+                    jobService.saveJob(job);
+                } catch (Exception ex) {
+                    LOG.error("Failed to save job with id: {}, cause: {}", job.getId(), ex.getMessage());
+                }
+            }
+        }
+        // listener is notified for unsaved jobs as well, their leases expire and they are recovered
+        for (final IJob<O> job : jobs) {
+            pendingJobIds.remove(job.getId());
+            savedListener.accept(job);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package io.maestro3.job.engine.approver;
+
+import io.maestro3.job.engine.IJobExecutionApprover;
+import io.maestro3.job.engine.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates wrapped approver by a background thread every refresh interval, so approval check of the job manager
+ * is a read of the last decision. When the wrapped approver fails, or its last decision is older than max staleness,
+ * job execution is approved or rejected according to {@link Builder#withApproveOnError(boolean)}
+ */
+public class CachedExecutionApprover implements IJobExecutionApprover, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachedExecutionApprover.class);
+
+    private final IJobExecutionApprover approver;
+    private final long maxStalenessMillis;
+    private final boolean approveOnError;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean approved;
+    private volatile long evaluatedAt;
+
+    private CachedExecutionApprover(Builder builder) {
+        this.approver = builder.approver;
+        this.maxStalenessMillis = builder.maxStalenessMillis > 0 ? builder.maxStalenessMillis : builder.refreshIntervalMillis * 3;
+        this.approveOnError = builder.approveOnError;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "job-engine-execution-approver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evaluate();
+        scheduler.scheduleWithFixedDelay(this::evaluate, builder.refreshIntervalMillis, builder.refreshIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public boolean approveJobExecution() {
+        if (System.currentTimeMillis() - evaluatedAt > maxStalenessMillis) {
+            return approveOnError;
+        }
+        return approved;
+    }
+
+    /**
+     * Stops background evaluation, the approver must not be used afterwards
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void evaluate() {
+        boolean decision;
+        try {
+            decision = approver.approveJobExecution();
+            evaluatedAt = System.currentTimeMillis();
+        } catch (Exception e) {
+            LOG.error("[JobManager]: Failed to evaluate job execution approver, cause: {}", e.getMessage());
+            decision = approveOnError;
+        }
+        if (decision != approved) {
+            LOG.info("[JobManager]: Job execution is {} by {}", decision ? "approved" : "rejected", approver);
+        }
+        approved = decision;
+    }
+
+    public static final class Builder {
+        private static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 1000L;
+
+        private IJobExecutionApprover approver;
+        private long refreshIntervalMillis = DEFAULT_REFRESH_INTERVAL_MILLIS;
+        private long maxStalenessMillis;
+        private boolean approveOnError;
+
+        private Builder() {
+        }
+
+        public Builder withApprover(IJobExecutionApprover approver) {
+            this.approver = approver;
+            return this;
+        }
+
+        public Builder withRefreshIntervalMillis(long refreshIntervalMillis) {
+            this.refreshIntervalMillis = refreshIntervalMillis;
+            return this;
+        }
+
+        /**
+         * @param maxStalenessMillis age of the last decision after which it is not trusted, three refresh intervals by default
+         */
+        public Builder withMaxStalenessMillis(long maxStalenessMillis) {
+            this.maxStalenessMillis = maxStalenessMillis;
+            return this;
+        }
+
+        /**
+         * @param approveOnError decision used when wrapped approver fails or hangs, false by default
+         */
+        public Builder withApproveOnError(boolean approveOnError) {
+            this.approveOnError = approveOnError;
+            return this;
+        }
+
+        public CachedExecutionApprover build() {
+            Assert.notNull(approver, "approver must not be null");
+            Assert.inRange(refreshIntervalMillis, 1, Long.MAX_VALUE, "refreshIntervalMillis");
+            Assert.inRange(maxStalenessMillis, 0, Long.MAX_VALUE, "maxStalenessMillis");
+            return new CachedExecutionApprover(this);
+        }
+    }
+}
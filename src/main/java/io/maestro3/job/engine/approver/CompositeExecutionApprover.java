@@ -0,0 +1,52 @@
+package io.maestro3.job.engine.approver;
+
+import io.maestro3.job.engine.IJobExecutionApprover;
+import io.maestro3.job.engine.util.Assert;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Combines approvers, they are evaluated in the given order until the decision is known
+ */
+public final class CompositeExecutionApprover implements IJobExecutionApprover {
+
+    private final List<IJobExecutionApprover> approvers;
+    private final boolean requireAll;
+
+    private CompositeExecutionApprover(List<IJobExecutionApprover> approvers, boolean requireAll) {
+        Assert.notNull(approvers, "approvers must not be null");
+        approvers.forEach(approver -> Assert.notNull(approver, "approver must not be null"));
+        this.approvers = List.copyOf(approvers);
+        this.requireAll = requireAll;
+    }
+
+    /**
+     * @return approver which approves job execution when every approver approves it, cheap approvers should go first
+     */
+    public static CompositeExecutionApprover allOf(IJobExecutionApprover... approvers) {
+        return new CompositeExecutionApprover(Arrays.asList(approvers), true);
+    }
+
+    /**
+     * @return approver which approves job execution when at least one approver approves it
+     */
+    public static CompositeExecutionApprover anyOf(IJobExecutionApprover... approvers) {
+        return new CompositeExecutionApprover(Arrays.asList(approvers), false);
+    }
+
+    @Override
+    public boolean approveJobExecution() {
+        for (final IJobExecutionApprover approver : approvers) {
+            if (approver.approveJobExecution() != requireAll) {
+                return !requireAll;
+            }
+        }
+        return requireAll;
+    }
+
+    @Override
+    public String toString() {
+        return (requireAll ? "allOf" : "anyOf") + approvers;
+    }
+}
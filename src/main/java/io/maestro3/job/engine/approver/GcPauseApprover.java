@@ -0,0 +1,73 @@
+package io.maestro3.job.engine.approver;
+
+import io.maestro3.job.engine.IJobExecutionApprover;
+import io.maestro3.job.engine.util.Assert;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Rejects job execution while garbage collectors took more than the given share of wall time of the last window.
+ * Calls within a window return the decision of the previous window, so the approver is meant to be wrapped
+ * by {@link CachedExecutionApprover} refreshed about once a window
+ */
+public class GcPauseApprover implements IJobExecutionApprover {
+
+    private final List<GarbageCollectorMXBean> collectorBeans = ManagementFactory.getGarbageCollectorMXBeans();
+    private final long windowMillis;
+    private final ThresholdState state;
+
+    // guarded by this
+    private long windowStart;
+    private long windowStartGcMillis;
+    private boolean approved = true;
+
+    /**
+     * @param maxGcTimeRatio share of wall time spent in GC, e.g. 0.1
+     * @param windowMillis   time the share is computed over
+     */
+    public GcPauseApprover(double maxGcTimeRatio, long windowMillis) {
+        this(maxGcTimeRatio, maxGcTimeRatio, windowMillis);
+    }
+
+    /**
+     * @param maxGcTimeRatio    share of wall time above which execution is rejected
+     * @param resumeGcTimeRatio share of wall time below which execution is approved again
+     * @param windowMillis      time the share is computed over
+     */
+    public GcPauseApprover(double maxGcTimeRatio, double resumeGcTimeRatio, long windowMillis) {
+        Assert.inRange(windowMillis, 1, Long.MAX_VALUE, "windowMillis");
+        this.state = new ThresholdState("maxGcTimeRatio", maxGcTimeRatio, resumeGcTimeRatio, 1.0);
+        this.windowMillis = windowMillis;
+        this.windowStart = System.currentTimeMillis();
+        this.windowStartGcMillis = totalGcMillis();
+    }
+
+    @Override
+    public synchronized boolean approveJobExecution() {
+        final long now = System.currentTimeMillis();
+        final long elapsedMillis = now - windowStart;
+        if (elapsedMillis >= windowMillis) {
+            final long gcMillis = totalGcMillis();
+            approved = state.approve((double) (gcMillis - windowStartGcMillis) / elapsedMillis);
+            windowStart = now;
+            windowStartGcMillis = gcMillis;
+        }
+        return approved;
+    }
+
+    private long totalGcMillis() {
+        long total = 0;
+        for (final GarbageCollectorMXBean collectorBean : collectorBeans) {
+            // -1 when collection time is not available
+            total += Math.max(collectorBean.getCollectionTime(), 0);
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "GcPauseApprover" + state;
+    }
+}
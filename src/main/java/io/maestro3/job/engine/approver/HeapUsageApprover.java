@@ -0,0 +1,45 @@
+package io.maestro3.job.engine.approver;
+
+import io.maestro3.job.engine.IJobExecutionApprover;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Rejects job execution while used heap exceeds the given share of max heap. Execution is approved again when
+ * usage drops below resume threshold, so the node does not flap around a single threshold
+ */
+public class HeapUsageApprover implements IJobExecutionApprover {
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final ThresholdState state;
+
+    /**
+     * @param maxUsage share of max heap, e.g. 0.9
+     */
+    public HeapUsageApprover(double maxUsage) {
+        this(maxUsage, maxUsage);
+    }
+
+    /**
+     * @param maxUsage    share of max heap above which execution is rejected
+     * @param resumeUsage share of max heap below which execution is approved again
+     */
+    public HeapUsageApprover(double maxUsage, double resumeUsage) {
+        this.state = new ThresholdState("maxUsage", maxUsage, resumeUsage, 1.0);
+    }
+
+    @Override
+    public boolean approveJobExecution() {
+        final MemoryUsage heap = memoryBean.getHeapMemoryUsage();
+        // max is undefined when heap is not limited, committed heap is the best estimate then
+        final long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        return max <= 0 || state.approve((double) heap.getUsed() / max);
+    }
+
+    @Override
+    public String toString() {
+        return "HeapUsageApprover" + state;
+    }
+}
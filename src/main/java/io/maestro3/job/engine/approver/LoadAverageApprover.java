@@ -0,0 +1,45 @@
+package io.maestro3.job.engine.approver;
+
+import io.maestro3.job.engine.IJobExecutionApprover;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Rejects job execution while system load average of the last minute per available processor exceeds the threshold.
+ * Execution is always approved on platforms which do not provide load average
+ */
+public class LoadAverageApprover implements IJobExecutionApprover {
+
+    private final OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+    private final ThresholdState state;
+
+    /**
+     * @param maxLoadPerProcessor load average per processor, e.g. 1.5
+     */
+    public LoadAverageApprover(double maxLoadPerProcessor) {
+        this(maxLoadPerProcessor, maxLoadPerProcessor);
+    }
+
+    /**
+     * @param maxLoadPerProcessor    load per processor above which execution is rejected
+     * @param resumeLoadPerProcessor load per processor below which execution is approved again
+     */
+    public LoadAverageApprover(double maxLoadPerProcessor, double resumeLoadPerProcessor) {
+        this.state = new ThresholdState("maxLoadPerProcessor", maxLoadPerProcessor, resumeLoadPerProcessor, Double.MAX_VALUE);
+    }
+
+    @Override
+    public boolean approveJobExecution() {
+        final double loadAverage = osBean.getSystemLoadAverage();
+        if (loadAverage < 0) {
+            return true;
+        }
+        return state.approve(loadAverage / osBean.getAvailableProcessors());
+    }
+
+    @Override
+    public String toString() {
+        return "LoadAverageApprover" + state;
+    }
+}
@@ -0,0 +1,41 @@
+package io.maestro3.job.engine.approver;
+
+/**
+ * Threshold with hysteresis shared by resource approvers
+ */
+final class ThresholdState {
+
+    private final double maxValue;
+    private final double resumeValue;
+
+    private volatile boolean rejected;
+
+    ThresholdState(String name, double maxValue, double resumeValue, double upperBound) {
+        if (maxValue <= 0 || maxValue > upperBound) {
+            throw new IllegalArgumentException(String.format("%s must be in range (0, %s], actual value is '%s'", name, upperBound, maxValue));
+        }
+        if (resumeValue <= 0 || resumeValue > maxValue) {
+            throw new IllegalArgumentException(String.format("resume value of %s must be in range (0, %s], actual value is '%s'",
+                    name, maxValue, resumeValue));
+        }
+        this.maxValue = maxValue;
+        this.resumeValue = resumeValue;
+    }
+
+    /**
+     * @return true if the value allows job execution
+     */
+    boolean approve(double value) {
+        if (rejected) {
+            rejected = value >= resumeValue;
+        } else {
+            rejected = value > maxValue;
+        }
+        return !rejected;
+    }
+
+    @Override
+    public String toString() {
+        return "{max=" + maxValue + ", resume=" + resumeValue + ", rejected=" + rejected + "}";
+    }
+}
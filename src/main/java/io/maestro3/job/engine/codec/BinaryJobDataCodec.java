@@ -0,0 +1,51 @@
+package io.maestro3.job.engine.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.maestro3.job.engine.exception.JsonConversionException;
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.util.Assert;
+import io.maestro3.job.engine.util.JsonUtils;
+
+/**
+ * Keeps job data in {@link IJob#getBinaryData()} encoded by the given mapper, e.g. a mapper
+ * created over Jackson Smile or CBOR factory. Jobs which have only JSON string data are still readable
+ */
+public class BinaryJobDataCodec<D> implements IJobDataCodec<D> {
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final ObjectReader jsonReader;
+
+    public BinaryJobDataCodec(ObjectMapper binaryMapper, TypeReference<D> typeReference) {
+        Assert.notNull(binaryMapper, "binaryMapper must not be null");
+        this.reader = binaryMapper.readerFor(typeReference);
+        this.writer = binaryMapper.writerFor(typeReference);
+        this.jsonReader = JsonUtils.readerFor(typeReference);
+    }
+
+    @Override
+    public D decode(IJob<?> job) {
+        try {
+            final byte[] binaryData = job.getBinaryData();
+            if (binaryData != null) {
+                return reader.readValue(binaryData);
+            }
+            final String data = job.getData();
+            return data == null ? null : jsonReader.readValue(data);
+        } catch (Exception e) {
+            throw new JsonConversionException("Failed to parse binary data", e);
+        }
+    }
+
+    @Override
+    public void encode(IJob<?> job, D data) {
+        try {
+            job.setBinaryData(writer.writeValueAsBytes(data));
+        } catch (Exception e) {
+            throw new JsonConversionException("Failed to convert object to binary data", e);
+        }
+    }
+}
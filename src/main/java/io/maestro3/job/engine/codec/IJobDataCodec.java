@@ -0,0 +1,25 @@
+package io.maestro3.job.engine.codec;
+
+import io.maestro3.job.engine.model.IJob;
+
+/**
+ * Converts job data between its stored form and the object passed to the job processor
+ *
+ * @param <D> type of job data
+ */
+public interface IJobDataCodec<D> {
+
+    /**
+     * Reads data of the job
+     *
+     * @throws io.maestro3.job.engine.exception.JsonConversionException when data can not be read
+     */
+    D decode(IJob<?> job);
+
+    /**
+     * Writes data back to the job
+     *
+     * @throws io.maestro3.job.engine.exception.JsonConversionException when data can not be written
+     */
+    void encode(IJob<?> job, D data);
+}
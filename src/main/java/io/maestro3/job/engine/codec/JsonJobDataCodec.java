@@ -0,0 +1,44 @@
+package io.maestro3.job.engine.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.maestro3.job.engine.exception.JsonConversionException;
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.util.JsonUtils;
+
+/**
+ * Default codec, keeps job data as JSON string. Reader and writer are resolved once per job type
+ */
+public class JsonJobDataCodec<D> implements IJobDataCodec<D> {
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    public JsonJobDataCodec(TypeReference<D> typeReference) {
+        this.reader = JsonUtils.readerFor(typeReference);
+        this.writer = JsonUtils.writerFor(typeReference);
+    }
+
+    @Override
+    public D decode(IJob<?> job) {
+        final String data = job.getData();
+        if (data == null) {
+            return null;
+        }
+        try {
+            return reader.readValue(data);
+        } catch (Exception e) {
+            throw new JsonConversionException("Failed to parse json", e);
+        }
+    }
+
+    @Override
+    public void encode(IJob<?> job, D data) {
+        try {
+            job.setData(writer.writeValueAsString(data));
+        } catch (Exception e) {
+            throw new JsonConversionException("Failed to convert object to json", e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.maestro3.job.engine.limit;
+
+import io.maestro3.job.engine.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Additive increase, multiplicative decrease: while the limit is utilized it grows by one after as many successful jobs
+ * as the limit is, and it is multiplied by backoff ratio after a failed job or a job which was slower than the latency threshold
+ */
+public class AimdConcurrencyLimit implements IConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    // guarded by this
+    private double estimatedLimit;
+
+    private volatile int limit;
+
+    private AimdConcurrencyLimit(Builder builder) {
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(builder.latencyThresholdMillis);
+        this.estimatedLimit = builder.initialLimit > 0 ? builder.initialLimit : minLimit;
+        this.limit = (int) estimatedLimit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long latencyNanos, int inFlight, boolean failed) {
+        if (failed || (latencyThresholdNanos > 0 && latencyNanos > latencyThresholdNanos)) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+        } else if (inFlight * 2 >= estimatedLimit) {
+            // limit is not raised while most of it is unused
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1 / estimatedLimit);
+        }
+        limit = (int) estimatedLimit;
+    }
+
+    public static final class Builder {
+        private int minLimit = 1;
+        private int maxLimit;
+        private int initialLimit;
+        private double backoffRatio = 0.9;
+        private long latencyThresholdMillis;
+
+        private Builder() {
+        }
+
+        public Builder withMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public Builder withMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * @param initialLimit limit before the first sample, min limit if not specified
+         */
+        public Builder withInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * @param backoffRatio multiplier of the limit after a failed or slow job, between 0.5 and 1
+         */
+        public Builder withBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * @param latencyThresholdMillis jobs which run longer are handled as failed, 0 to decrease the limit on failures only
+         */
+        public Builder withLatencyThresholdMillis(long latencyThresholdMillis) {
+            this.latencyThresholdMillis = latencyThresholdMillis;
+            return this;
+        }
+
+        public AimdConcurrencyLimit build() {
+            Assert.positiveInt(minLimit, "minLimit");
+            Assert.inRange(maxLimit, minLimit, Integer.MAX_VALUE, "maxLimit");
+            if (initialLimit != 0) {
+                Assert.inRange(initialLimit, minLimit, maxLimit, "initialLimit");
+            }
+            if (backoffRatio < 0.5 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("backoffRatio must be in range [0.5, 1), actual value is '" + backoffRatio + "'");
+            }
+            Assert.inRange(latencyThresholdMillis, 0, Long.MAX_VALUE, "latencyThresholdMillis");
+            return new AimdConcurrencyLimit(this);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package io.maestro3.job.engine.limit;
+
+import io.maestro3.job.engine.util.Assert;
+
+/**
+ * Gradient limit in the spirit of TCP Vegas: compares latency of each job with the no-load latency, the lowest
+ * latency of the recent window. While jobs run as fast as without load the limit grows by the square root of itself,
+ * when latency rises because a downstream queues the jobs the limit shrinks proportionally to the slowdown.
+ * Failed jobs decrease the limit by backoff ratio. Changes are smoothed, so a single outlier does not move the limit much
+ */
+public class GradientConcurrencyLimit implements IConcurrencyLimit {
+
+    // gradient below this value means a heavily overloaded downstream, limit is not cut more than by half at once
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final int window;
+
+    // guarded by this
+    private double estimatedLimit;
+    private long noLoadLatency;
+    private long windowMinLatency = Long.MAX_VALUE;
+    private int windowSamples;
+
+    private volatile int limit;
+
+    private GradientConcurrencyLimit(Builder builder) {
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.smoothing = builder.smoothing;
+        this.tolerance = builder.tolerance;
+        this.backoffRatio = builder.backoffRatio;
+        this.window = builder.window;
+        this.estimatedLimit = builder.initialLimit > 0 ? builder.initialLimit : minLimit;
+        this.limit = (int) estimatedLimit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long latencyNanos, int inFlight, boolean failed) {
+        if (failed) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+            limit = (int) estimatedLimit;
+            return;
+        }
+        final long latency = Math.max(latencyNanos, 1);
+        updateNoLoadLatency(latency);
+        if (inFlight * 2 < estimatedLimit) {
+            // limit is not utilized, samples say nothing about the concurrency downstream can serve
+            return;
+        }
+        final double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * noLoadLatency / latency));
+        final double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - smoothing) + newLimit * smoothing));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * No-load latency is the minimum of the previous window, so it follows a downstream which became slower for good
+     */
+    private void updateNoLoadLatency(long latency) {
+        windowMinLatency = Math.min(windowMinLatency, latency);
+        if (noLoadLatency == 0 || latency < noLoadLatency) {
+            noLoadLatency = latency;
+        }
+        if (++windowSamples >= window) {
+            noLoadLatency = windowMinLatency;
+            windowMinLatency = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+    }
+
+    public static final class Builder {
+        private int minLimit = 1;
+        private int maxLimit;
+        private int initialLimit;
+        private double smoothing = 0.2;
+        private double tolerance = 1.5;
+        private double backoffRatio = 0.9;
+        private int window = 1000;
+
+        private Builder() {
+        }
+
+        public Builder withMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public Builder withMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * @param initialLimit limit before the first sample, min limit if not specified
+         */
+        public Builder withInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * @param smoothing weight of a new estimate of the limit, between 0 and 1
+         */
+        public Builder withSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        /**
+         * @param tolerance how many times latency may exceed no-load latency before the limit is decreased
+         */
+        public Builder withTolerance(double tolerance) {
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * @param backoffRatio multiplier of the limit after a failed job, between 0.5 and 1
+         */
+        public Builder withBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * @param window number of samples no-load latency is taken from
+         */
+        public Builder withWindow(int window) {
+            this.window = window;
+            return this;
+        }
+
+        public GradientConcurrencyLimit build() {
+            Assert.positiveInt(minLimit, "minLimit");
+            Assert.inRange(maxLimit, minLimit, Integer.MAX_VALUE, "maxLimit");
+            if (initialLimit != 0) {
+                Assert.inRange(initialLimit, minLimit, maxLimit, "initialLimit");
+            }
+            if (smoothing <= 0 || smoothing > 1) {
+                throw new IllegalArgumentException("smoothing must be in range (0, 1], actual value is '" + smoothing + "'");
+            }
+            if (tolerance < 1) {
+                throw new IllegalArgumentException("tolerance must not be less than 1, actual value is '" + tolerance + "'");
+            }
+            if (backoffRatio < 0.5 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("backoffRatio must be in range [0.5, 1), actual value is '" + backoffRatio + "'");
+            }
+            Assert.positiveInt(window, "window");
+            return new GradientConcurrencyLimit(this);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.maestro3.job.engine.limit;
+
+/**
+ * Concurrency limit which adapts to observed execution latency and errors. Implementations must be thread safe,
+ * one instance serves one limit: the global one or the one of a single job type
+ */
+public interface IConcurrencyLimit {
+
+    /**
+     * @return current number of jobs which may run concurrently
+     */
+    int getLimit();
+
+    /**
+     * Called when a job or a batch of jobs finishes
+     *
+     * @param latencyNanos execution time of the job
+     * @param inFlight     number of jobs which were running when the job started, including the job itself
+     * @param failed       true if the job failed or was postponed
+     */
+    void onSample(long latencyNanos, int inFlight, boolean failed);
+}
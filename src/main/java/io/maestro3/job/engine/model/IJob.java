@@ -7,6 +7,7 @@ public interface IJob<O> {
     int MAX_PRIORITY_VALUE = 5;
     int MIN_PRIORITY_VALUE = 1;
     int DEFAULT_PRIORITY_VALUE = 3;
+    int NO_PARTITION = -1;
 
     String getId();
 
@@ -18,6 +19,19 @@ public interface IJob<O> {
 
     void setData(String data);
 
+    /**
+     * Binary encoded job data, used by {@link io.maestro3.job.engine.codec.BinaryJobDataCodec}
+     */
+    default byte[] getBinaryData() {
+        return null;
+    }
+
+    default void setBinaryData(byte[] binaryData) {
+        if (binaryData != null) {
+            throw new UnsupportedOperationException("Binary job data is not supported by " + getClass().getName());
+        }
+    }
+
     JobStatus getStatus();
 
     void setStatus(JobStatus status);
@@ -65,4 +79,37 @@ public interface IJob<O> {
     void setResult(String result);
 
     O getOperation();
+
+    /**
+     * Id of the node which claimed the job, stores which support processing leases should persist it
+     */
+    default String getOwnerId() {
+        return null;
+    }
+
+    default void setOwnerId(String ownerId) {
+    }
+
+    /**
+     * Date after which PROCESSING job is considered abandoned by its owner and can be recovered
+     */
+    default Date getLeaseExpiryDate() {
+        return null;
+    }
+
+    default void setLeaseExpiryDate(Date leaseExpiryDate) {
+    }
+
+    /**
+     * Partition of the job, nodes claim jobs of their own partitions first. Stores which support partitioning
+     * should persist and index it
+     *
+     * @see io.maestro3.job.engine.partition.JobPartitions
+     */
+    default int getPartition() {
+        return NO_PARTITION;
+    }
+
+    default void setPartition(int partition) {
+    }
 }
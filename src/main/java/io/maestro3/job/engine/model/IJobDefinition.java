@@ -1,6 +1,8 @@
 package io.maestro3.job.engine.model;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import io.maestro3.job.engine.codec.IJobDataCodec;
+import io.maestro3.job.engine.retry.IRetryPolicy;
 
 public interface IJobDefinition<D> {
 
@@ -11,9 +13,28 @@ public interface IJobDefinition<D> {
      */
     TypeReference<D> getClassReference();
 
+    /**
+     * Codec used to read and write job data
+     * @return custom codec, or null to use JSON codec built from {@link #getClassReference()}
+     */
+    default IJobDataCodec<D> getDataCodec() { return null; }
+
     /**
      * This flag will trigger generation of 'operationId' field in form of UUID
      * @return true if the job definition type should be supported by OperationHandler
      */
     default boolean isOperational() { return false; }
+
+    /**
+     * Limits number of concurrently running jobs of this type, can be overridden by job manager configuration
+     * @return max number of concurrently running jobs of this type, 0 if only global limit should be applied
+     */
+    default int getMaxConcurrentTasks() { return 0; }
+
+    /**
+     * Retry policy of postponed jobs of this type, delay requested by {@link io.maestro3.job.engine.exception.JobPostponeException}
+     * still takes precedence
+     * @return retry policy, or null to use postpone count and minutes of job manager configuration
+     */
+    default IRetryPolicy getRetryPolicy() { return null; }
 }
\ No newline at end of file
@@ -1,55 +1,104 @@
 package io.maestro3.job.engine.model;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 public class JobStats {
     private final long time;
-    private final AtomicInteger created;
-    private final AtomicInteger success;
-    private final AtomicInteger failed;
-    private final AtomicInteger postponed;
+    private final boolean snapshot;
+    private final LongAdder created;
+    private final LongAdder success;
+    private final LongAdder failed;
+    private final LongAdder postponed;
+    private final Map<LatencyType, LatencyHistogram> latencies;
 
     public JobStats(long time) {
+        this(time, false);
+    }
+
+    private JobStats(long time, boolean snapshot) {
         this.time = time;
-        this.created = new AtomicInteger();
-        this.success = new AtomicInteger();
-        this.failed = new AtomicInteger();
-        this.postponed = new AtomicInteger();
+        this.snapshot = snapshot;
+        this.created = new LongAdder();
+        this.success = new LongAdder();
+        this.failed = new LongAdder();
+        this.postponed = new LongAdder();
+        this.latencies = new EnumMap<>(LatencyType.class);
+        for (final LatencyType latencyType : LatencyType.values()) {
+            latencies.put(latencyType, new LatencyHistogram());
+        }
     }
 
     public int getCreated() {
-        return created.get();
+        return created.intValue();
     }
 
     public int getSuccess() {
-        return success.get();
+        return success.intValue();
     }
 
     public int getFailed() {
-        return failed.get();
+        return failed.intValue();
     }
 
     public int getPostponed() {
-        return postponed.get();
+        return postponed.intValue();
+    }
+
+    public LatencyHistogram getLatency(LatencyType latencyType) {
+        return latencies.get(latencyType);
     }
 
     public long getTime() {
         return time;
     }
 
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
     public void addCreated() {
-        created.incrementAndGet();
+        checkNotSnapshot();
+        created.increment();
     }
 
     public void addSuccess() {
-        success.incrementAndGet();
+        checkNotSnapshot();
+        success.increment();
     }
 
     public void addFailed() {
-        failed.incrementAndGet();
+        checkNotSnapshot();
+        failed.increment();
     }
 
     public void addPostponed() {
-        postponed.incrementAndGet();
+        checkNotSnapshot();
+        postponed.increment();
+    }
+
+    public void addLatency(LatencyType latencyType, long millis) {
+        checkNotSnapshot();
+        latencies.get(latencyType).record(millis);
+    }
+
+    /**
+     * @return immutable copy of current counters and latencies
+     */
+    public JobStats snapshot() {
+        final JobStats copy = new JobStats(time, true);
+        copy.created.add(created.sum());
+        copy.success.add(success.sum());
+        copy.failed.add(failed.sum());
+        copy.postponed.add(postponed.sum());
+        latencies.forEach((latencyType, histogram) -> copy.latencies.put(latencyType, histogram.snapshot()));
+        return copy;
+    }
+
+    private void checkNotSnapshot() {
+        if (snapshot) {
+            throw new UnsupportedOperationException("Job stats snapshot can not be modified");
+        }
     }
 }
@@ -0,0 +1,144 @@
+package io.maestro3.job.engine.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed memory histogram of latencies in milliseconds. Values are grouped into log2 ranges split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so reported percentiles have relative error below 25%
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values up to 2^40 ms (~35 years) are distinguished, larger ones fall into the last bucket
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final boolean snapshot;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount;
+    private final AtomicLong maxValue;
+
+    public LatencyHistogram() {
+        this(false);
+    }
+
+    private LatencyHistogram(boolean snapshot) {
+        this.snapshot = snapshot;
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.totalCount = new AtomicLong();
+        this.maxValue = new AtomicLong();
+    }
+
+    public void record(long millis) {
+        checkNotSnapshot();
+        final long value = Math.max(millis, 0);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        long currentMax;
+        while (value > (currentMax = maxValue.get()) && !maxValue.compareAndSet(currentMax, value)) {
+            // retry until max is updated by this or another thread
+        }
+    }
+
+    /**
+     * Adds all values of the other histogram to this one
+     */
+    public void merge(LatencyHistogram other) {
+        checkNotSnapshot();
+        mergeFrom(other);
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * @param percentile value in range (0, 100]
+     * @return upper bound of the bucket which contains the percentile, 0 if histogram is empty
+     */
+    public long getPercentile(double percentile) {
+        final long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max((long) Math.ceil(count * Math.min(percentile, 100.0) / 100.0), 1);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return i == BUCKETS - 1 ? maxValue.get() : Math.min(bucketUpperBound(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    public long getP95() {
+        return getPercentile(95);
+    }
+
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return immutable copy of the histogram
+     */
+    public LatencyHistogram snapshot() {
+        final LatencyHistogram copy = new LatencyHistogram(true);
+        copy.mergeFrom(this);
+        return copy;
+    }
+
+    private void mergeFrom(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            final long bucketCount = other.counts.get(i);
+            if (bucketCount > 0) {
+                counts.addAndGet(i, bucketCount);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        maxValue.accumulateAndGet(other.maxValue.get(), Math::max);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT && value >= (1L << (MAX_EXPONENT + 1))) {
+            return BUCKETS - 1;
+        }
+        final int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        final int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        final long lowerBound = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    private void checkNotSnapshot() {
+        if (snapshot) {
+            throw new UnsupportedOperationException("Latency histogram snapshot can not be modified");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.maestro3.job.engine.model;
+
+public enum LatencyType {
+    /**
+     * From the moment job became due (created or postponed date) till its start
+     */
+    QUEUE_WAIT,
+    /**
+     * From job start till its completion
+     */
+    EXECUTION,
+    /**
+     * From job creation till its final status
+     */
+    END_TO_END
+}
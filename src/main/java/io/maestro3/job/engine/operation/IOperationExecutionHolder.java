@@ -1,6 +1,7 @@
 package io.maestro3.job.engine.operation;
 
 import java.util.Collection;
+import java.util.concurrent.CompletionStage;
 
 public interface IOperationExecutionHolder<O> {
 
@@ -17,4 +18,25 @@ public interface IOperationExecutionHolder<O> {
     Collection<O> getExecutionHistory(OperationKey key);
 
     boolean isDone(OperationKey key);
+
+    /**
+     * Reads operation output written since the given offset, so clients can tail the log
+     * without re-reading the whole output
+     *
+     * @param fromOffset {@link OperationLogChunk#getNextOffset()} of the previous read, 0 to read from the beginning
+     * @return chunk of the log, null if operation is not found
+     */
+    OperationLogChunk readLog(String operationId, long fromOffset);
+
+    /**
+     * Lets clients wait for completion without polling {@link #isDone(OperationKey)}
+     *
+     * @return stage completed with the operation when it is done, completed exceptionally if operation is not found
+     * or is evicted before completion
+     */
+    CompletionStage<O> awaitDone(String operationId);
+
+    void addListener(IOperationListener<O> listener);
+
+    void removeListener(IOperationListener<O> listener);
 }
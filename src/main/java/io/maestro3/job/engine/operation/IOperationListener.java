@@ -0,0 +1,26 @@
+package io.maestro3.job.engine.operation;
+
+/**
+ * Receives changes of operations kept by {@link IOperationExecutionHolder}. Listeners are called after the change
+ * is applied, outside of holder locks, and may be called concurrently for different operations
+ */
+public interface IOperationListener<O> {
+
+    /**
+     * Called when operation is created or its state is updated
+     */
+    default void onStateChanged(OperationKey key, O operation) {
+    }
+
+    /**
+     * Called when text is written to operation log
+     */
+    default void onLogWritten(OperationKey key, O operation, String text) {
+    }
+
+    /**
+     * Called when operation is completed
+     */
+    default void onDone(OperationKey key, O operation) {
+    }
+}
@@ -0,0 +1,31 @@
+package io.maestro3.job.engine.operation;
+
+import java.util.List;
+
+/**
+ * Off-heap storage of completed and evicted operation executions
+ */
+public interface IOperationSpillStore<O> {
+
+    /**
+     * Stores execution, later spill of the same operation replaces the previous one
+     *
+     * @param log whole log of the execution which is kept on heap
+     */
+    void spill(OperationKey key, String operationId, O operation, OperationLogChunk log);
+
+    /**
+     * @return latest spilled state of the operation, null if not found
+     */
+    O getOperation(String operationId);
+
+    /**
+     * @return spilled executions of the key, newest first
+     */
+    List<O> getHistory(OperationKey key);
+
+    /**
+     * @return log of the spilled operation since the given offset, null if not found
+     */
+    OperationLogChunk readLog(String operationId, long fromOffset);
+}
@@ -0,0 +1,15 @@
+package io.maestro3.job.engine.operation;
+
+/**
+ * Defines what happens when operation log reaches its size limit
+ */
+public enum LogTruncationPolicy {
+    /**
+     * Oldest output is discarded, so the log keeps the most recent output
+     */
+    DROP_OLDEST,
+    /**
+     * New output is discarded, so the log keeps the beginning of the output
+     */
+    DROP_NEWEST
+}
@@ -0,0 +1,152 @@
+package io.maestro3.job.engine.operation;
+
+import io.maestro3.job.engine.util.Assert;
+
+public class OperationExecutionHolderConfiguration<O> {
+
+    public static final int DEFAULT_MAX_LOG_LENGTH = 1024 * 1024;
+    public static final int DEFAULT_MAX_RECORDS_PER_KEY = 3;
+
+    private final int maxLogLength;
+    private final LogTruncationPolicy logTruncationPolicy;
+    private final boolean snapshotReads;
+    private final int maxRecordsPerKey;
+    private final long recordTtlMillis;
+    private final long idleKeyTtlMillis;
+    private final long maxTotalLogLength;
+    private final IOperationSpillStore<O> spillStore;
+
+    private OperationExecutionHolderConfiguration(Builder<O> builder) {
+        this.maxLogLength = builder.maxLogLength;
+        this.logTruncationPolicy = builder.logTruncationPolicy;
+        this.snapshotReads = builder.snapshotReads;
+        this.maxRecordsPerKey = builder.maxRecordsPerKey;
+        this.recordTtlMillis = builder.recordTtlMillis;
+        this.idleKeyTtlMillis = builder.idleKeyTtlMillis;
+        this.maxTotalLogLength = builder.maxTotalLogLength;
+        this.spillStore = builder.spillStore;
+    }
+
+    public static <E> Builder<E> builder() {
+        return new Builder<>();
+    }
+
+    public int getMaxLogLength() {
+        return maxLogLength;
+    }
+
+    public LogTruncationPolicy getLogTruncationPolicy() {
+        return logTruncationPolicy;
+    }
+
+    public boolean useSnapshotReads() {
+        return snapshotReads;
+    }
+
+    public int getMaxRecordsPerKey() {
+        return maxRecordsPerKey;
+    }
+
+    public long getRecordTtlMillis() {
+        return recordTtlMillis;
+    }
+
+    public long getIdleKeyTtlMillis() {
+        return idleKeyTtlMillis;
+    }
+
+    public long getMaxTotalLogLength() {
+        return maxTotalLogLength;
+    }
+
+    public IOperationSpillStore<O> getSpillStore() {
+        return spillStore;
+    }
+
+    public static final class Builder<P> {
+        private int maxLogLength = DEFAULT_MAX_LOG_LENGTH;
+        private LogTruncationPolicy logTruncationPolicy = LogTruncationPolicy.DROP_OLDEST;
+        private boolean snapshotReads;
+        private int maxRecordsPerKey = DEFAULT_MAX_RECORDS_PER_KEY;
+        private long recordTtlMillis;
+        private long idleKeyTtlMillis;
+        private long maxTotalLogLength;
+        private IOperationSpillStore<P> spillStore;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxLogLength max number of characters kept in the log of a single operation
+         */
+        public Builder<P> withMaxLogLength(int maxLogLength) {
+            this.maxLogLength = maxLogLength;
+            return this;
+        }
+
+        public Builder<P> withLogTruncationPolicy(LogTruncationPolicy logTruncationPolicy) {
+            this.logTruncationPolicy = logTruncationPolicy;
+            return this;
+        }
+
+        /**
+         * Enables copy-on-write snapshots: operation is copied once when it is stored and readers get the stored
+         * copy and pre-sorted history without copying. Returned operations must not be modified by readers
+         */
+        public Builder<P> withSnapshotReads(boolean snapshotReads) {
+            this.snapshotReads = snapshotReads;
+            return this;
+        }
+
+        /**
+         * @param maxRecordsPerKey number of executions kept on heap per operation key, oldest ones are evicted
+         */
+        public Builder<P> withMaxRecordsPerKey(int maxRecordsPerKey) {
+            this.maxRecordsPerKey = maxRecordsPerKey;
+            return this;
+        }
+
+        /**
+         * @param recordTtlMillis time completed execution is kept on heap, 0 to keep until evicted by other limits
+         */
+        public Builder<P> withRecordTtl(long recordTtlMillis) {
+            this.recordTtlMillis = recordTtlMillis;
+            return this;
+        }
+
+        /**
+         * @param idleKeyTtlMillis time after the last change when key with completed executions only is removed, 0 to keep keys
+         */
+        public Builder<P> withIdleKeyTtl(long idleKeyTtlMillis) {
+            this.idleKeyTtlMillis = idleKeyTtlMillis;
+            return this;
+        }
+
+        /**
+         * @param maxTotalLogLength memory budget: total number of log characters kept on heap by all executions,
+         *                          oldest completed executions are evicted above it, 0 for no budget
+         */
+        public Builder<P> withMaxTotalLogLength(long maxTotalLogLength) {
+            this.maxTotalLogLength = maxTotalLogLength;
+            return this;
+        }
+
+        /**
+         * @param spillStore store which receives completed and evicted executions, they remain readable from it
+         */
+        public Builder<P> withSpillStore(IOperationSpillStore<P> spillStore) {
+            this.spillStore = spillStore;
+            return this;
+        }
+
+        public OperationExecutionHolderConfiguration<P> build() {
+            Assert.positiveInt(maxLogLength, "maxLogLength");
+            Assert.notNull(logTruncationPolicy, "logTruncationPolicy must not be null");
+            Assert.positiveInt(maxRecordsPerKey, "maxRecordsPerKey");
+            Assert.inRange(recordTtlMillis, 0, Long.MAX_VALUE, "recordTtlMillis");
+            Assert.inRange(idleKeyTtlMillis, 0, Long.MAX_VALUE, "idleKeyTtlMillis");
+            Assert.inRange(maxTotalLogLength, 0, Long.MAX_VALUE, "maxTotalLogLength");
+            return new OperationExecutionHolderConfiguration<>(this);
+        }
+    }
+}
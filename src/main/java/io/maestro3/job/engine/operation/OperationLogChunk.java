@@ -0,0 +1,53 @@
+package io.maestro3.job.engine.operation;
+
+/**
+ * Part of operation log starting at the requested offset
+ */
+public class OperationLogChunk {
+
+    private final String text;
+    private final long fromOffset;
+    private final long nextOffset;
+    private final boolean truncated;
+    private final boolean done;
+
+    public OperationLogChunk(String text, long fromOffset, long nextOffset, boolean truncated, boolean done) {
+        this.text = text;
+        this.fromOffset = fromOffset;
+        this.nextOffset = nextOffset;
+        this.truncated = truncated;
+        this.done = done;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return offset of the first returned character, greater than requested one if older output was dropped
+     */
+    public long getFromOffset() {
+        return fromOffset;
+    }
+
+    /**
+     * @return offset to pass to the next read to get only new output
+     */
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * @return true if part of the output was dropped because of log size limit
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return true if operation is completed and no more output will be written
+     */
+    public boolean isDone() {
+        return done;
+    }
+}
@@ -1,115 +1,263 @@
 package io.maestro3.job.engine.operation.impl;
 
 import io.maestro3.job.engine.operation.IOperationExecutionHolder;
+import io.maestro3.job.engine.operation.IOperationListener;
+import io.maestro3.job.engine.operation.IOperationSpillStore;
+import io.maestro3.job.engine.operation.OperationExecutionHolderConfiguration;
 import io.maestro3.job.engine.operation.OperationKey;
+import io.maestro3.job.engine.operation.OperationLogChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public abstract class AbstractOperationExecutionHolder<O> implements IOperationExecutionHolder<O> {
 
-    public static final int MAX_SIZE = 3;
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractOperationExecutionHolder.class);
+
+    public static final int MAX_SIZE = OperationExecutionHolderConfiguration.DEFAULT_MAX_RECORDS_PER_KEY;
+
+    private static final long MIN_MAINTENANCE_INTERVAL_MILLIS = 100;
+    private static final long BUDGET_MAINTENANCE_INTERVAL_MILLIS = 1000;
 
     private final ExecutionHolder holder = new ExecutionHolder();
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    private final Lock readLock = readWriteLock.readLock();
-    private final Lock writeLock = readWriteLock.writeLock();
+    private final OperationExecutionHolderConfiguration<O> configuration;
+    private final boolean snapshotReads;
+    private final int maxRecordsPerKey;
+    private final long recordTtlMillis;
+    private final long idleKeyTtlMillis;
+    private final long maxTotalLogLength;
+    private final IOperationSpillStore<O> spillStore;
+    private final long maintenanceIntervalMillis;
+    private final AtomicLong nextMaintenanceTime = new AtomicLong();
+    private final List<IOperationListener<O>> listeners = new CopyOnWriteArrayList<>();
+
+    protected AbstractOperationExecutionHolder() {
+        this(OperationExecutionHolderConfiguration.<O>builder().build());
+    }
+
+    protected AbstractOperationExecutionHolder(OperationExecutionHolderConfiguration<O> configuration) {
+        this.configuration = configuration;
+        this.snapshotReads = configuration.useSnapshotReads();
+        this.maxRecordsPerKey = configuration.getMaxRecordsPerKey();
+        this.recordTtlMillis = configuration.getRecordTtlMillis();
+        this.idleKeyTtlMillis = configuration.getIdleKeyTtlMillis();
+        this.maxTotalLogLength = configuration.getMaxTotalLogLength();
+        this.spillStore = configuration.getSpillStore();
+        this.maintenanceIntervalMillis = resolveMaintenanceInterval();
+    }
 
     @Override
     public void create(OperationKey key, O operation) {
-        writeLock.lock();
-        try {
-            ExecutionRecord executionRecord = new ExecutionRecord(operation);
-            holder.putRecord(key, executionRecord);
-        } finally {
-            writeLock.unlock();
-        }
+        ExecutionRecord executionRecord = new ExecutionRecord(operation);
+        holder.update(key, records -> {
+            holder.putRecord(records, executionRecord);
+            return executionRecord;
+        });
+        notifyListeners(listener -> listener.onStateChanged(key, executionRecord.getOperation()));
+        maintainIfDue();
     }
 
     @Override
     public void run(OperationKey key, O operation) {
-        writeLock.lock();
-        try {
-            ExecutionRecord executionRecord = holder.get(key, getOperationId(operation));
+        ExecutionRecord runRecord = holder.update(key, records -> {
+            ExecutionRecord executionRecord = records.get(getOperationId(operation));
             if (executionRecord == null || executionRecord.isDone()) {
                 executionRecord = new ExecutionRecord(operation);
-                holder.putRecord(key, executionRecord);
+                holder.putRecord(records, executionRecord);
             } else {
                 executionRecord.setOperation(operation);
+                records.onChanged();
             }
-        } finally {
-            writeLock.unlock();
-        }
+            return executionRecord;
+        });
+        notifyListeners(listener -> listener.onStateChanged(key, runRecord.getOperation()));
+        maintainIfDue();
     }
 
     @Override
     public void write(OperationKey key, O operation, String text) {
-        writeLock.lock();
-        try {
-            ExecutionRecord executionRecord = holder.get(key, getOperationId(operation));
+        ExecutionHolderMap records = holder.records(key);
+        if (records == null) {
+            throw new IllegalArgumentException("No executions found");
+        }
+        synchronized (records) {
+            ExecutionRecord executionRecord = records.removed ? null : records.get(getOperationId(operation));
             if (executionRecord == null) {
                 throw new IllegalArgumentException("No executions found");
             }
-            executionRecord.setText(executionRecord.getText() + text);
-        } finally {
-            writeLock.unlock();
+            executionRecord.getLog().append(text);
+            records.touch();
         }
+        notifyListeners(listener -> listener.onLogWritten(key, operation, text));
+        maintainIfDue();
     }
 
     @Override
     public void stopRunning(OperationKey key, O operation) {
-        writeLock.lock();
-        try {
-            ExecutionRecord executionRecord = holder.get(key, getOperationId(operation));
+        ExecutionHolderMap records = holder.records(key);
+        if (records == null) {
+            return;
+        }
+        ExecutionRecord executionRecord;
+        synchronized (records) {
+            executionRecord = records.removed ? null : records.get(getOperationId(operation));
             if (executionRecord == null) {
                 return;
             }
 
-            executionRecord.setDone(true);
-            executionRecord.setText(executionRecord.getText() + "\n Asynchronous execution completed.");
+            executionRecord.getLog().append("\n Asynchronous execution completed.");
             executionRecord.setOperation(operation);
-        } finally {
-            writeLock.unlock();
+            executionRecord.setDone(true);
+            records.onChanged();
+            if (spillStore != null) {
+                holder.spill(records, executionRecord);
+            }
         }
+        // completed outside of the key lock, so dependent stages of waiting clients do not block writers
+        executionRecord.completion.complete(executionRecord.operation);
+        O doneOperation = executionRecord.getOperation();
+        notifyListeners(listener -> {
+            listener.onStateChanged(key, doneOperation);
+            listener.onDone(key, doneOperation);
+        });
+        maintainIfDue();
     }
 
     @Override
     public O getExecution(String operationId) {
-        readLock.lock();
-        try {
-            return Optional.ofNullable(holder.get(operationId)).map(ExecutionRecord::getOperation).orElse(null);
-        } finally {
-            readLock.unlock();
+        ExecutionRecord executionRecord = holder.get(operationId);
+        if (executionRecord != null) {
+            return executionRecord.getOperation();
         }
+        return spillStore == null ? null : spillStore.getOperation(operationId);
     }
 
     @Override
     public Collection<O> getExecutionHistory(OperationKey key) {
-        readLock.lock();
-        try {
-            return holder.records(key).stream()
-                    .map(ExecutionRecord::getOperation)
-                    .sorted(Comparator.comparing(this::getOperationCreationTimestamp).reversed())
-                    .collect(Collectors.toList());
-        } finally {
-            readLock.unlock();
+        ExecutionHolderMap records = holder.records(key);
+        if (snapshotReads && records != null) {
+            return records.getHistory();
         }
+        return mergeHistory(key, holder.snapshot(records));
     }
 
     @Override
     public boolean isDone(OperationKey key) {
-        readLock.lock();
-        try {
-            return holder.records(key).stream().allMatch(ExecutionRecord::isDone);
-        } finally {
-            readLock.unlock();
+        ExecutionHolderMap records = holder.records(key);
+        if (records == null) {
+            return true;
+        }
+        synchronized (records) {
+            for (ExecutionRecord executionRecord : records.values()) {
+                if (!executionRecord.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public OperationLogChunk readLog(String operationId, long fromOffset) {
+        ExecutionRecord executionRecord = holder.get(operationId);
+        if (executionRecord != null) {
+            return executionRecord.getLog().read(fromOffset, executionRecord.isDone());
+        }
+        return spillStore == null ? null : spillStore.readLog(operationId, fromOffset);
+    }
+
+    @Override
+    public CompletionStage<O> awaitDone(String operationId) {
+        ExecutionRecord executionRecord = holder.get(operationId);
+        if (executionRecord != null) {
+            return executionRecord.completion.thenApply(this::readableOperation).minimalCompletionStage();
+        }
+        O spilledOperation = spillStore == null ? null : spillStore.getOperation(operationId);
+        if (spilledOperation != null) {
+            return CompletableFuture.completedStage(spilledOperation);
+        }
+        return CompletableFuture.failedStage(new IllegalArgumentException("No executions found"));
+    }
+
+    @Override
+    public void addListener(IOperationListener<O> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(IOperationListener<O> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Evicts expired executions, idle keys and the oldest completed executions above the memory budget.
+     * It is done on updates of the holder, can be called explicitly when the holder is not updated for a long time
+     */
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        List<EvictionCandidate> candidates = new ArrayList<>();
+        long totalLogLength = 0;
+        for (Map.Entry<OperationKey, ExecutionHolderMap> entry : holder.data.entrySet()) {
+            ExecutionHolderMap records = entry.getValue();
+            synchronized (records) {
+                if (records.removed) {
+                    continue;
+                }
+                if (idleKeyTtlMillis > 0 && now - records.lastUpdated >= idleKeyTtlMillis && holder.removeIdle(records)) {
+                    continue;
+                }
+                boolean changed = false;
+                Iterator<ExecutionRecord> iterator = records.values().iterator();
+                while (iterator.hasNext()) {
+                    ExecutionRecord executionRecord = iterator.next();
+                    if (executionRecord.isDone() && recordTtlMillis > 0 && now - executionRecord.doneTimestamp >= recordTtlMillis) {
+                        iterator.remove();
+                        holder.onEvicted(records, executionRecord);
+                        changed = true;
+                        continue;
+                    }
+                    long logLength = executionRecord.getLog().length();
+                    totalLogLength += logLength;
+                    if (executionRecord.isDone()) {
+                        candidates.add(new EvictionCandidate(records, executionRecord, logLength));
+                    }
+                }
+                if (changed) {
+                    records.onChanged();
+                }
+            }
+        }
+        if (maxTotalLogLength > 0 && totalLogLength > maxTotalLogLength) {
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.executionRecord.doneTimestamp));
+            for (EvictionCandidate candidate : candidates) {
+                if (totalLogLength <= maxTotalLogLength) {
+                    break;
+                }
+                if (holder.evict(candidate.records, candidate.executionRecord)) {
+                    totalLogLength -= candidate.logLength;
+                }
+            }
         }
     }
 
@@ -119,22 +267,90 @@ public abstract class AbstractOperationExecutionHolder<O> implements IOperationE
 
     protected abstract O copyOperation(O operation);
 
+    private void notifyListeners(Consumer<IOperationListener<O>> notification) {
+        for (IOperationListener<O> listener : listeners) {
+            try {
+                notification.accept(listener);
+            } catch (RuntimeException e) {
+                LOG.error("Operation listener failed, cause: {}", e.getMessage());
+            }
+        }
+    }
+
+    private O readableOperation(O operation) {
+        return snapshotReads ? operation : copyOperation(operation);
+    }
+
+    private void maintainIfDue() {
+        if (maintenanceIntervalMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long nextTime = nextMaintenanceTime.get();
+        if (now >= nextTime && nextMaintenanceTime.compareAndSet(nextTime, now + maintenanceIntervalMillis)) {
+            evictExpired();
+        }
+    }
+
+    private long resolveMaintenanceInterval() {
+        long interval = Long.MAX_VALUE;
+        if (recordTtlMillis > 0) {
+            interval = Math.min(interval, recordTtlMillis / 4);
+        }
+        if (idleKeyTtlMillis > 0) {
+            interval = Math.min(interval, idleKeyTtlMillis / 4);
+        }
+        if (maxTotalLogLength > 0) {
+            interval = Math.min(interval, BUDGET_MAINTENANCE_INTERVAL_MILLIS);
+        }
+        return interval == Long.MAX_VALUE ? 0 : Math.max(interval, MIN_MAINTENANCE_INTERVAL_MILLIS);
+    }
+
+    private List<O> mergeHistory(OperationKey key, Collection<ExecutionRecord> records) {
+        List<O> history = records.stream()
+                .map(ExecutionRecord::getOperation)
+                .collect(Collectors.toList());
+        if (spillStore != null) {
+            Set<String> operationIds = new HashSet<>();
+            for (ExecutionRecord executionRecord : records) {
+                operationIds.add(indexKey(executionRecord.getId()));
+            }
+            for (O operation : spillStore.getHistory(key)) {
+                if (operationIds.add(indexKey(getOperationId(operation)))) {
+                    history.add(operation);
+                }
+            }
+        }
+        history.sort(Comparator.comparing(this::getOperationCreationTimestamp).reversed());
+        return history;
+    }
+
+    private static String indexKey(String operationId) {
+        return operationId.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Record is mutated under the lock of its key and read without locks, so its state is published through volatile fields.
+     * In snapshot mode stored copy of the operation is never modified and is returned to readers as is
+     */
     private class ExecutionRecord {
 
-        private String text = "";
-        private boolean done;
-        private O operation;
+        private final String id;
+        private final OperationLog log = new OperationLog(configuration.getMaxLogLength(), configuration.getLogTruncationPolicy());
+        private volatile boolean done;
+        private volatile O operation;
+        private volatile long doneTimestamp;
+        private final CompletableFuture<O> completion = new CompletableFuture<>();
+        // guarded by the lock of the key, whether current state is already in the spill store
+        private boolean spilled;
 
         public ExecutionRecord(O operation) {
             this.operation = copyOperation(operation);
+            this.id = getOperationId(this.operation);
         }
 
-        public String getText() {
-            return text;
-        }
-
-        public void setText(String text) {
-            this.text = text;
+        public OperationLog getLog() {
+            return log;
         }
 
         public boolean isDone() {
@@ -143,51 +359,188 @@ public abstract class AbstractOperationExecutionHolder<O> implements IOperationE
 
         public void setDone(boolean done) {
             this.done = done;
+            this.doneTimestamp = done ? System.currentTimeMillis() : 0;
         }
 
         public O getOperation() {
-            return copyOperation(operation);
+            return readableOperation(operation);
         }
 
         public void setOperation(O operation) {
             this.operation = copyOperation(operation);
+            this.spilled = false;
         }
 
         public String getId() {
-            return getOperationId(operation);
+            return id;
         }
     }
 
+    /**
+     * Every operation key has its own lock, so operations of different keys do not contend.
+     * Records are also indexed by operation id for constant time lookup
+     */
     private class ExecutionHolder {
 
-        private final Map<OperationKey, LinkedHashMap<String, ExecutionRecord>> data = new HashMap<>();
+        private final ConcurrentMap<OperationKey, ExecutionHolderMap> data = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, ExecutionRecord> recordsById = new ConcurrentHashMap<>();
+
+        public ExecutionHolderMap records(OperationKey key) {
+            return data.get(key);
+        }
 
-        public Collection<ExecutionRecord> records(OperationKey key) {
-            return data.computeIfAbsent(key, k -> new ExecutionHolderMap()).values();
+        /**
+         * Runs the action under the lock of the key records, retries if the records were removed as idle concurrently
+         */
+        public <T> T update(OperationKey key, Function<ExecutionHolderMap, T> action) {
+            while (true) {
+                ExecutionHolderMap records = data.computeIfAbsent(key, ExecutionHolderMap::new);
+                synchronized (records) {
+                    if (!records.removed) {
+                        return action.apply(records);
+                    }
+                }
+            }
         }
 
-        public void putRecord(OperationKey key, ExecutionRecord executionRecord) {
-            data.computeIfAbsent(key, k -> new ExecutionHolderMap()).put(executionRecord.getId(), executionRecord);
+        public List<ExecutionRecord> snapshot(ExecutionHolderMap records) {
+            if (records == null) {
+                return Collections.emptyList();
+            }
+            synchronized (records) {
+                return new ArrayList<>(records.values());
+            }
         }
 
-        public ExecutionRecord get(OperationKey key, String operationId) {
-            return data.computeIfAbsent(key, k -> new ExecutionHolderMap()).get(operationId);
+        /**
+         * Must be called under the lock of records
+         */
+        public void putRecord(ExecutionHolderMap records, ExecutionRecord executionRecord) {
+            records.put(executionRecord.getId(), executionRecord);
+            records.onChanged();
+            recordsById.put(indexKey(executionRecord.getId()), executionRecord);
         }
 
         public ExecutionRecord get(String operationId) {
-            return data.values().stream()
-                    .map(Map::values)
-                    .flatMap(Collection::stream)
-                    .filter(r -> operationId.equalsIgnoreCase(r.getId()))
-                    .findFirst()
-                    .orElse(null);
+            return recordsById.get(indexKey(operationId));
+        }
+
+        public boolean evict(ExecutionHolderMap records, ExecutionRecord executionRecord) {
+            synchronized (records) {
+                if (records.removed || !records.remove(executionRecord.getId(), executionRecord)) {
+                    return false;
+                }
+                onEvicted(records, executionRecord);
+                records.onChanged();
+                return true;
+            }
+        }
+
+        /**
+         * Must be called under the lock of records, removes the key if all its executions are completed
+         */
+        public boolean removeIdle(ExecutionHolderMap records) {
+            for (ExecutionRecord executionRecord : records.values()) {
+                if (!executionRecord.isDone()) {
+                    return false;
+                }
+            }
+            for (ExecutionRecord executionRecord : records.values()) {
+                onEvicted(records, executionRecord);
+            }
+            records.clear();
+            records.removed = true;
+            data.remove(records.key, records);
+            return true;
+        }
+
+        /**
+         * Must be called under the lock of records after the record is removed from them
+         */
+        public void onEvicted(ExecutionHolderMap records, ExecutionRecord executionRecord) {
+            recordsById.remove(indexKey(executionRecord.getId()), executionRecord);
+            if (!executionRecord.isDone()) {
+                executionRecord.completion.completeExceptionally(new IllegalStateException("Operation execution is evicted before completion"));
+            }
+            if (spillStore != null && !executionRecord.spilled) {
+                spill(records, executionRecord);
+            }
+        }
+
+        /**
+         * Must be called under the lock of records. Failure of the spill store is logged and never propagated,
+         * so completion of the execution and notification of listeners do not depend on it
+         */
+        public void spill(ExecutionHolderMap records, ExecutionRecord executionRecord) {
+            try {
+                spillStore.spill(records.key, executionRecord.getId(), executionRecord.operation, executionRecord.getLog().read(0, executionRecord.isDone()));
+                executionRecord.spilled = true;
+            } catch (RuntimeException e) {
+                LOG.error("Failed to spill operation execution {}, cause: {}", executionRecord.getId(), e.getMessage());
+            }
         }
     }
 
     private class ExecutionHolderMap extends LinkedHashMap<String, ExecutionRecord> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final OperationKey key;
+        // history sorted by creation timestamp, rebuilt on the first read after a change, used in snapshot mode only
+        private volatile List<O> history;
+        private volatile long lastUpdated = System.currentTimeMillis();
+        // guarded by this, set when the key is removed as idle, so the map must not be updated anymore
+        private boolean removed;
+
+        public ExecutionHolderMap(OperationKey key) {
+            this.key = key;
+        }
+
+        /**
+         * Must be called under the lock of this map after any change of its records
+         */
+        public void onChanged() {
+            history = null;
+            touch();
+        }
+
+        public void touch() {
+            lastUpdated = System.currentTimeMillis();
+        }
+
+        public List<O> getHistory() {
+            List<O> sortedHistory = history;
+            if (sortedHistory != null) {
+                return sortedHistory;
+            }
+            synchronized (this) {
+                if (history == null) {
+                    history = Collections.unmodifiableList(mergeHistory(key, values()));
+                }
+                return history;
+            }
+        }
+
         @Override
         protected boolean removeEldestEntry(Map.Entry<String, ExecutionRecord> eldest) {
-            return this.size() > MAX_SIZE;
+            boolean evict = this.size() > maxRecordsPerKey;
+            if (evict) {
+                holder.onEvicted(this, eldest.getValue());
+            }
+            return evict;
+        }
+    }
+
+    private class EvictionCandidate {
+
+        private final ExecutionHolderMap records;
+        private final ExecutionRecord executionRecord;
+        private final long logLength;
+
+        EvictionCandidate(ExecutionHolderMap records, ExecutionRecord executionRecord, long logLength) {
+            this.records = records;
+            this.executionRecord = executionRecord;
+            this.logLength = logLength;
         }
     }
 }
@@ -0,0 +1,512 @@
+package io.maestro3.job.engine.operation.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.maestro3.job.engine.exception.JsonConversionException;
+import io.maestro3.job.engine.operation.IOperationSpillStore;
+import io.maestro3.job.engine.operation.OperationKey;
+import io.maestro3.job.engine.operation.OperationLogChunk;
+import io.maestro3.job.engine.util.Assert;
+import io.maestro3.job.engine.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only spill store on top of memory-mapped segment files. Space of a record is reserved in the active segment
+ * by an atomic offset and the record is written without a lock, only switching to a new segment is serialized.
+ * Every record has a checksum and its length is written last, so a record torn by a crash is ignored when segments
+ * are scanned on start, together with records reserved after it, and the segment is cleared and written over from that record.
+ * Writes are not forced to disk, the data is flushed by the OS or on {@link #close()}.
+ * When the number of segments exceeds the limit the oldest segment is deleted with all its records
+ */
+public class MappedFileOperationSpillStore<O> implements IOperationSpillStore<O>, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedFileOperationSpillStore.class);
+
+    private static final String SEGMENT_PREFIX = "spill-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    // length and checksum of a record
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final int maxRecordsPerKey;
+    private final Function<OperationKey, String> keyIdFunction;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    private final NavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, RecordPointer> index = new ConcurrentHashMap<>();
+    // operation ids of every key, newest first, every deque is changed only inside compute of its key
+    // and guarded by itself, empty deques are removed
+    private final ConcurrentMap<String, Deque<String>> historyByKey = new ConcurrentHashMap<>();
+    // replaced under the lock of the store
+    private volatile Segment activeSegment;
+
+    private MappedFileOperationSpillStore(Builder<O> builder) throws IOException {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.maxSegments = builder.maxSegments;
+        this.maxRecordsPerKey = builder.maxRecordsPerKey;
+        this.keyIdFunction = builder.keyIdFunction;
+        this.reader = JsonUtils.readerFor(builder.operationType);
+        this.writer = JsonUtils.writerFor(builder.operationType);
+        Files.createDirectories(directory);
+        load();
+    }
+
+    public static <E> Builder<E> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public void spill(OperationKey key, String operationId, O operation, OperationLogChunk log) {
+        try {
+            final String keyId = keyIdFunction.apply(key);
+            final byte[] record = serialize(keyId, operationId, operation, log);
+            if (record.length + HEADER_SIZE > segmentSize) {
+                LOG.warn("Operation {} is not spilled, its size {} exceeds segment size {}", operationId, record.length, segmentSize);
+                return;
+            }
+            Segment segment = activeSegment;
+            int recordPosition = segment == null ? -1 : segment.reserve(record.length + HEADER_SIZE);
+            while (recordPosition < 0) {
+                segment = rollSegment(segment);
+                recordPosition = segment.reserve(record.length + HEADER_SIZE);
+            }
+            final int position = segment.write(recordPosition, record);
+            index.put(indexKey(operationId), new RecordPointer(keyId, segment.number, position, record.length));
+            addToHistory(keyId, operationId);
+        } catch (IOException e) {
+            LOG.error("Failed to spill operation {}, cause: {}", operationId, e.getMessage());
+        }
+    }
+
+    @Override
+    public O getOperation(String operationId) {
+        final SpilledRecord record = read(operationId);
+        return record == null ? null : record.operation;
+    }
+
+    @Override
+    public List<O> getHistory(OperationKey key) {
+        final Deque<String> history = historyByKey.get(keyIdFunction.apply(key));
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        final List<String> operationIds;
+        synchronized (history) {
+            operationIds = new ArrayList<>(history);
+        }
+        return operationIds.stream()
+                .map(this::getOperation)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public OperationLogChunk readLog(String operationId, long fromOffset) {
+        final SpilledRecord record = read(operationId);
+        if (record == null) {
+            return null;
+        }
+        final long endOffset = record.logOffset + record.log.length();
+        final long offset = Math.min(Math.max(fromOffset, record.logOffset), endOffset);
+        final String text = record.log.substring((int) (offset - record.logOffset));
+        return new OperationLogChunk(text, offset, endOffset, record.logTruncated || fromOffset < record.logOffset, true);
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+        index.clear();
+        historyByKey.clear();
+        activeSegment = null;
+    }
+
+    private SpilledRecord read(String operationId) {
+        final String indexKey = indexKey(operationId);
+        final RecordPointer pointer = index.get(indexKey);
+        if (pointer == null) {
+            return null;
+        }
+        final Segment segment = segments.get(pointer.segment);
+        if (segment == null) {
+            index.remove(indexKey, pointer);
+            return null;
+        }
+        try {
+            return deserialize(segment.read(pointer.position, pointer.length));
+        } catch (IOException e) {
+            LOG.error("Failed to read spilled operation {}, cause: {}", operationId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void load() throws IOException {
+        final List<Integer> numbers;
+        try (Stream<Path> files = Files.list(directory)) {
+            numbers = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .map(Integer::valueOf)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Integer number : numbers) {
+            final Segment segment = new Segment(number);
+            segments.put(number, segment);
+            segment.scan();
+            activeSegment = segment;
+        }
+    }
+
+    /**
+     * Maps a new segment unless another writer already replaced the full one
+     *
+     * @param fullSegment segment which has no space for the record, null if there is no segment yet
+     * @return active segment
+     */
+    private synchronized Segment rollSegment(Segment fullSegment) throws IOException {
+        if (activeSegment != fullSegment) {
+            return activeSegment;
+        }
+        final int number = fullSegment == null ? 1 : fullSegment.number + 1;
+        final Segment segment = new Segment(number);
+        segments.put(number, segment);
+        activeSegment = segment;
+        while (segments.size() > maxSegments) {
+            dropSegment(segments.pollFirstEntry().getValue());
+        }
+        return segment;
+    }
+
+    /**
+     * Deletes the segment and forgets operations whose latest record is in it
+     */
+    private void dropSegment(Segment segment) throws IOException {
+        final Iterator<Map.Entry<String, RecordPointer>> entries = index.entrySet().iterator();
+        while (entries.hasNext()) {
+            final Map.Entry<String, RecordPointer> entry = entries.next();
+            final RecordPointer pointer = entry.getValue();
+            if (pointer.segment == segment.number && index.remove(entry.getKey(), pointer)) {
+                removeFromHistory(pointer.keyId, entry.getKey());
+            }
+        }
+        segment.close();
+        Files.deleteIfExists(segment.path);
+    }
+
+    private void addToHistory(String keyId, String operationId) {
+        historyByKey.compute(keyId, (k, history) -> {
+            final Deque<String> operationIds = history == null ? new ArrayDeque<>() : history;
+            synchronized (operationIds) {
+                operationIds.removeIf(operationId::equalsIgnoreCase);
+                operationIds.addFirst(operationId);
+                while (operationIds.size() > maxRecordsPerKey) {
+                    final String evicted = operationIds.removeLast();
+                    index.remove(indexKey(evicted));
+                }
+            }
+            return operationIds;
+        });
+    }
+
+    private void removeFromHistory(String keyId, String operationId) {
+        historyByKey.computeIfPresent(keyId, (k, history) -> {
+            synchronized (history) {
+                history.removeIf(operationId::equalsIgnoreCase);
+                return history.isEmpty() ? null : history;
+            }
+        });
+    }
+
+    private byte[] serialize(String keyId, String operationId, O operation, OperationLogChunk log) throws IOException {
+        final byte[] operationBytes;
+        try {
+            operationBytes = writer.writeValueAsBytes(operation);
+        } catch (Exception e) {
+            throw new JsonConversionException("Failed to convert operation to json", e);
+        }
+        final byte[] logBytes = log.getText().getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(operationBytes.length + logBytes.length + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(keyId);
+            out.writeUTF(operationId);
+            out.writeLong(log.getFromOffset());
+            out.writeBoolean(log.isTruncated());
+            out.writeInt(logBytes.length);
+            out.write(logBytes);
+            out.writeInt(operationBytes.length);
+            out.write(operationBytes);
+        }
+        return bytes.toByteArray();
+    }
+
+    private SpilledRecord deserialize(byte[] record) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            in.readUTF();
+            in.readUTF();
+            final long logOffset = in.readLong();
+            final boolean logTruncated = in.readBoolean();
+            final byte[] logBytes = new byte[in.readInt()];
+            in.readFully(logBytes);
+            final byte[] operationBytes = new byte[in.readInt()];
+            in.readFully(operationBytes);
+            return new SpilledRecord(reader.readValue(operationBytes), new String(logBytes, StandardCharsets.UTF_8), logOffset, logTruncated);
+        }
+    }
+
+    private static int checksum(byte[] record) {
+        final CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static String indexKey(String operationId) {
+        return operationId.toLowerCase(Locale.ROOT);
+    }
+
+    private final class Segment {
+
+        private final int number;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // end of reserved space, records below it may still be written
+        private final AtomicInteger position = new AtomicInteger();
+
+        Segment(int number) throws IOException {
+            this.number = number;
+            this.path = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        }
+
+        /**
+         * @return position of the reserved space, -1 if the segment has not enough space
+         */
+        int reserve(int size) {
+            while (true) {
+                final int reserved = position.get();
+                if (buffer.capacity() - reserved < size) {
+                    return -1;
+                }
+                if (position.compareAndSet(reserved, reserved + size)) {
+                    return reserved;
+                }
+            }
+        }
+
+        /**
+         * @return position of the record data
+         */
+        int write(int recordPosition, byte[] record) {
+            final ByteBuffer view = buffer.duplicate();
+            view.position(recordPosition + HEADER_SIZE);
+            view.put(record);
+            buffer.putInt(recordPosition + Integer.BYTES, checksum(record));
+            buffer.putInt(recordPosition, record.length);
+            return recordPosition + HEADER_SIZE;
+        }
+
+        byte[] read(int recordPosition, int length) {
+            final byte[] record = new byte[length];
+            final ByteBuffer view = buffer.duplicate();
+            view.position(recordPosition);
+            view.get(record);
+            return record;
+        }
+
+        /**
+         * Indexes records of the segment, scan stops at the first torn or corrupted record
+         * and the following writes start from it
+         */
+        void scan() {
+            int scanned = 0;
+            while (scanned + HEADER_SIZE <= buffer.capacity()) {
+                final int length = buffer.getInt(scanned);
+                if (length <= 0 || length > buffer.capacity() - scanned - HEADER_SIZE) {
+                    break;
+                }
+                final byte[] record = read(scanned + HEADER_SIZE, length);
+                if (checksum(record) != buffer.getInt(scanned + Integer.BYTES)) {
+                    LOG.warn("Spill segment {} has a corrupted record at {}, records after it are ignored", path, scanned);
+                    break;
+                }
+                try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+                    final String keyId = in.readUTF();
+                    final String operationId = in.readUTF();
+                    index.put(indexKey(operationId), new RecordPointer(keyId, number, scanned + HEADER_SIZE, length));
+                    addToHistory(keyId, operationId);
+                } catch (IOException e) {
+                    LOG.warn("Spill segment {} has an unreadable record at {}, cause: {}", path, scanned, e.getMessage());
+                    break;
+                }
+                scanned += HEADER_SIZE + length;
+            }
+            clearFrom(scanned);
+            position.set(scanned);
+        }
+
+        /**
+         * Zeroes leftovers of ignored records, otherwise a record written over them could make
+         * a stale record after it valid again. Zero pages are only read, so sparse files stay sparse
+         */
+        private void clearFrom(int offset) {
+            int cleared = offset;
+            while (cleared + Long.BYTES <= buffer.capacity()) {
+                if (buffer.getLong(cleared) != 0) {
+                    buffer.putLong(cleared, 0);
+                }
+                cleared += Long.BYTES;
+            }
+            while (cleared < buffer.capacity()) {
+                buffer.put(cleared++, (byte) 0);
+            }
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                LOG.error("Failed to close spill segment {}, cause: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private static final class RecordPointer {
+
+        private final String keyId;
+        private final int segment;
+        private final int position;
+        private final int length;
+
+        RecordPointer(String keyId, int segment, int position, int length) {
+            this.keyId = keyId;
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    private final class SpilledRecord {
+
+        private final O operation;
+        private final String log;
+        private final long logOffset;
+        private final boolean logTruncated;
+
+        SpilledRecord(O operation, String log, long logOffset, boolean logTruncated) {
+            this.operation = operation;
+            this.log = log;
+            this.logOffset = logOffset;
+            this.logTruncated = logTruncated;
+        }
+    }
+
+    public static final class Builder<P> {
+        private Path directory;
+        private TypeReference<P> operationType;
+        private Function<OperationKey, String> keyIdFunction = String::valueOf;
+        private int segmentSize = 64 * 1024 * 1024;
+        private int maxSegments = 16;
+        private int maxRecordsPerKey = 100;
+
+        private Builder() {
+        }
+
+        public Builder<P> withDirectory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * @param operationType type of operations, they are stored as JSON
+         */
+        public Builder<P> withOperationType(TypeReference<P> operationType) {
+            this.operationType = operationType;
+            return this;
+        }
+
+        /**
+         * @param keyIdFunction stable string identity of operation key, so history survives restarts. Uses toString by default
+         */
+        public Builder<P> withKeyIdFunction(Function<OperationKey, String> keyIdFunction) {
+            this.keyIdFunction = keyIdFunction;
+            return this;
+        }
+
+        public Builder<P> withSegmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        public Builder<P> withMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+            return this;
+        }
+
+        /**
+         * @param maxRecordsPerKey number of spilled executions returned in history of a key
+         */
+        public Builder<P> withMaxRecordsPerKey(int maxRecordsPerKey) {
+            this.maxRecordsPerKey = maxRecordsPerKey;
+            return this;
+        }
+
+        public MappedFileOperationSpillStore<P> build() {
+            Assert.notNull(directory, "directory must not be null");
+            Assert.notNull(operationType, "operationType must not be null");
+            Assert.notNull(keyIdFunction, "keyIdFunction must not be null");
+            Assert.positiveInt(segmentSize, "segmentSize");
+            Assert.positiveInt(maxSegments, "maxSegments");
+            Assert.positiveInt(maxRecordsPerKey, "maxRecordsPerKey");
+            try {
+                return new MappedFileOperationSpillStore<>(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open spill store in " + directory, e);
+            }
+        }
+    }
+}
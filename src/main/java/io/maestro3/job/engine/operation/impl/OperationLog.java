@@ -0,0 +1,93 @@
+package io.maestro3.job.engine.operation.impl;
+
+import io.maestro3.job.engine.operation.LogTruncationPolicy;
+import io.maestro3.job.engine.operation.OperationLogChunk;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Append-only log split into fixed size chunks, so appends do not copy previous output.
+ * Offsets are absolute and keep growing when old chunks are dropped
+ */
+final class OperationLog {
+
+    private static final int MAX_CHUNK_SIZE = 8 * 1024;
+
+    private final int maxLength;
+    private final int chunkSize;
+    private final LogTruncationPolicy truncationPolicy;
+    private final Deque<StringBuilder> chunks = new ArrayDeque<>();
+
+    private long startOffset;
+    private long endOffset;
+    private boolean truncated;
+
+    OperationLog(int maxLength, LogTruncationPolicy truncationPolicy) {
+        this.maxLength = maxLength;
+        this.chunkSize = Math.min(MAX_CHUNK_SIZE, maxLength);
+        this.truncationPolicy = truncationPolicy;
+    }
+
+    synchronized void append(String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String appendedText = text;
+        if (truncationPolicy == LogTruncationPolicy.DROP_NEWEST) {
+            final long remaining = maxLength - (endOffset - startOffset);
+            if (remaining < text.length()) {
+                truncated = true;
+                appendedText = text.substring(0, (int) Math.max(remaining, 0));
+            }
+        }
+
+        int position = 0;
+        while (position < appendedText.length()) {
+            StringBuilder chunk = chunks.peekLast();
+            if (chunk == null || chunk.length() >= chunkSize) {
+                chunk = new StringBuilder(chunkSize);
+                chunks.addLast(chunk);
+            }
+            final int length = Math.min(chunkSize - chunk.length(), appendedText.length() - position);
+            chunk.append(appendedText, position, position + length);
+            position += length;
+        }
+        endOffset += appendedText.length();
+
+        while (endOffset - startOffset > maxLength) {
+            startOffset += chunks.removeFirst().length();
+            truncated = true;
+        }
+    }
+
+    /**
+     * @return number of characters kept in memory
+     */
+    synchronized long length() {
+        return endOffset - startOffset;
+    }
+
+    /**
+     * @param done whether operation is completed
+     * @return output written since the given offset
+     */
+    synchronized OperationLogChunk read(long fromOffset, boolean done) {
+        final long offset = Math.max(fromOffset, startOffset);
+        final boolean outputDropped = fromOffset < startOffset
+                || (truncated && truncationPolicy == LogTruncationPolicy.DROP_NEWEST);
+        if (offset >= endOffset) {
+            return new OperationLogChunk("", endOffset, endOffset, outputDropped, done);
+        }
+        final StringBuilder result = new StringBuilder((int) (endOffset - offset));
+        long chunkStart = startOffset;
+        for (final StringBuilder chunk : chunks) {
+            final long chunkEnd = chunkStart + chunk.length();
+            if (chunkEnd > offset) {
+                result.append(chunk, (int) Math.max(offset - chunkStart, 0), chunk.length());
+            }
+            chunkStart = chunkEnd;
+        }
+        return new OperationLogChunk(result.toString(), offset, endOffset, outputDropped, done);
+    }
+}
@@ -0,0 +1,26 @@
+package io.maestro3.job.engine.partition;
+
+import java.util.Set;
+
+/**
+ * Tells which nodes are alive, so job partitions can be rebalanced when nodes join or leave.
+ * Implementations usually keep heartbeats in the shared store
+ */
+public interface IClusterMembership {
+
+    void join(String nodeId);
+
+    void leave(String nodeId);
+
+    /**
+     * @return ids of alive nodes
+     */
+    Set<String> getMembers();
+
+    /**
+     * @param listener called after the set of members is changed
+     */
+    void addListener(Runnable listener);
+
+    void removeListener(Runnable listener);
+}
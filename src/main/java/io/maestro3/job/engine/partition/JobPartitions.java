@@ -0,0 +1,84 @@
+package io.maestro3.job.engine.partition;
+
+import io.maestro3.job.engine.model.IJob;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Partitioning of jobs between nodes. Job gets its partition from a hash of its id or type when it is created,
+ * partitions are assigned to nodes by rendezvous hashing, so only partitions of joined or left node move
+ */
+public final class JobPartitions {
+
+    private JobPartitions() {
+        throw new UnsupportedOperationException("Class is not designed for an instantiation");
+    }
+
+    /**
+     * @param partitionKey job id, or job type to keep jobs of the same type on the same node
+     * @return partition in range [0, partitionCount)
+     */
+    public static int partitionOf(String partitionKey, int partitionCount) {
+        return (int) Long.remainderUnsigned(hash(partitionKey), partitionCount);
+    }
+
+    /**
+     * Assigns partition by job id, should be called before the job is saved for the first time
+     */
+    public static void assignPartition(IJob<?> job, int partitionCount) {
+        job.setPartition(partitionOf(job.getId(), partitionCount));
+    }
+
+    /**
+     * @return partitions owned by the node: every partition belongs to the member with the highest rendezvous weight
+     */
+    public static Set<Integer> ownedPartitions(String nodeId, Collection<String> members, int partitionCount) {
+        final Set<Integer> partitions = new HashSet<>();
+        if (!members.contains(nodeId)) {
+            return partitions;
+        }
+        final long nodeHash = hash(nodeId);
+        for (int partition = 0; partition < partitionCount; partition++) {
+            final long weight = mix(nodeHash + partition);
+            boolean owned = true;
+            for (final String member : members) {
+                if (member.equals(nodeId)) {
+                    continue;
+                }
+                final long memberWeight = mix(hash(member) + partition);
+                if (memberWeight > weight || (memberWeight == weight && member.compareTo(nodeId) > 0)) {
+                    owned = false;
+                    break;
+                }
+            }
+            if (owned) {
+                partitions.add(partition);
+            }
+        }
+        return partitions;
+    }
+
+    private static long hash(String value) {
+        // FNV-1a, stable across JVMs unlike identity hashes
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        // finalizer of MurmurHash3
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,52 @@
+package io.maestro3.job.engine.partition;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory membership shared by managers of the same JVM, e.g. in tests or single process deployments
+ */
+public class LocalClusterMembership implements IClusterMembership {
+
+    private final Set<String> members = new ConcurrentSkipListSet<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    public LocalClusterMembership() {
+    }
+
+    @Override
+    public void join(String nodeId) {
+        if (members.add(nodeId)) {
+            notifyListeners();
+        }
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        if (members.remove(nodeId)) {
+            notifyListeners();
+        }
+    }
+
+    @Override
+    public Set<String> getMembers() {
+        return Collections.unmodifiableSet(members);
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners() {
+        listeners.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,131 @@
+package io.maestro3.job.engine.retry;
+
+import io.maestro3.job.engine.util.Assert;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry policy with fixed, exponential or decorrelated jitter backoff capped by max delay.
+ * Exponential delay is randomized by {@link JitterType#EQUAL} jitter unless configured otherwise
+ */
+public class BackoffRetryPolicy implements IRetryPolicy {
+
+    private final BackoffType backoffType;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final double multiplier;
+    private final JitterType jitterType;
+    private final int maxAttempts;
+
+    private BackoffRetryPolicy(Builder builder) {
+        this.backoffType = builder.backoffType;
+        this.baseDelayMillis = builder.baseDelayMillis;
+        this.maxDelayMillis = builder.maxDelayMillis;
+        this.multiplier = builder.multiplier;
+        this.jitterType = builder.jitterType;
+        this.maxAttempts = builder.maxAttempts;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public long getDelayMillis(int attempt, long previousDelayMillis) {
+        final double delay;
+        switch (backoffType) {
+            case EXPONENTIAL:
+                delay = jitter(Math.min(baseDelayMillis * Math.pow(multiplier, Math.max(attempt - 1, 0)), maxDelayMillis));
+                break;
+            case DECORRELATED_JITTER:
+                final double upperBound = Math.max(previousDelayMillis, baseDelayMillis) * 3.0;
+                delay = ThreadLocalRandom.current().nextDouble(baseDelayMillis, upperBound);
+                break;
+            case FIXED:
+            default:
+                delay = baseDelayMillis;
+        }
+        return (long) Math.min(delay, maxDelayMillis);
+    }
+
+    private double jitter(double delay) {
+        switch (jitterType) {
+            case FULL:
+                return ThreadLocalRandom.current().nextDouble() * delay;
+            case EQUAL:
+                return delay / 2 + ThreadLocalRandom.current().nextDouble() * delay / 2;
+            case NONE:
+            default:
+                return delay;
+        }
+    }
+
+    public static final class Builder {
+        private BackoffType backoffType = BackoffType.EXPONENTIAL;
+        private long baseDelayMillis = TimeUnit.MINUTES.toMillis(1);
+        private long maxDelayMillis = TimeUnit.HOURS.toMillis(6);
+        private double multiplier = 2;
+        private JitterType jitterType = JitterType.EQUAL;
+        private int maxAttempts;
+
+        private Builder() {
+        }
+
+        public Builder withBackoffType(BackoffType backoffType) {
+            this.backoffType = backoffType;
+            return this;
+        }
+
+        public Builder withBaseDelayMillis(long baseDelayMillis) {
+            this.baseDelayMillis = baseDelayMillis;
+            return this;
+        }
+
+        /**
+         * @param maxDelayMillis cap of the delay
+         */
+        public Builder withMaxDelayMillis(long maxDelayMillis) {
+            this.maxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        /**
+         * @param multiplier growth of the delay between attempts of {@link BackoffType#EXPONENTIAL} backoff
+         */
+        public Builder withMultiplier(double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * @param jitterType randomization of {@link BackoffType#EXPONENTIAL} delay, {@link JitterType#EQUAL} by default
+         */
+        public Builder withJitter(JitterType jitterType) {
+            this.jitterType = jitterType;
+            return this;
+        }
+
+        public Builder withMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public BackoffRetryPolicy build() {
+            Assert.notNull(backoffType, "backoffType must not be null");
+            Assert.notNull(jitterType, "jitterType must not be null");
+            Assert.inRange(baseDelayMillis, 1, Long.MAX_VALUE, "baseDelayMillis");
+            Assert.inRange(maxDelayMillis, baseDelayMillis, Long.MAX_VALUE, "maxDelayMillis");
+            if (multiplier < 1) {
+                throw new IllegalArgumentException("multiplier must not be less than 1, actual value is '" + multiplier + "'");
+            }
+            Assert.positiveInt(maxAttempts, "maxAttempts");
+            return new BackoffRetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.maestro3.job.engine.retry;
+
+public enum BackoffType {
+    /**
+     * Base delay before every retry
+     */
+    FIXED,
+    /**
+     * Base delay multiplied by multiplier^(attempt - 1), randomized by {@link JitterType}
+     */
+    EXPONENTIAL,
+    /**
+     * Random delay between base delay and three times the previous delay, so retries of jobs failed together spread out
+     */
+    DECORRELATED_JITTER
+}
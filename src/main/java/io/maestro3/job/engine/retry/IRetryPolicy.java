@@ -0,0 +1,19 @@
+package io.maestro3.job.engine.retry;
+
+/**
+ * Decides when a postponed job is retried and how many times
+ */
+public interface IRetryPolicy {
+
+    /**
+     * @return max number of postpones of a job, job fails when it is exceeded
+     */
+    int getMaxAttempts();
+
+    /**
+     * @param attempt             number of the retry, starting from 1
+     * @param previousDelayMillis delay before the previous retry, 0 for the first retry or if unknown
+     * @return delay before the retry
+     */
+    long getDelayMillis(int attempt, long previousDelayMillis);
+}
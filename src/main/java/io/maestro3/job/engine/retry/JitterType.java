@@ -0,0 +1,19 @@
+package io.maestro3.job.engine.retry;
+
+/**
+ * Randomization of {@link BackoffType#EXPONENTIAL} delay, so retries of jobs failed together do not hit the store at once
+ */
+public enum JitterType {
+    /**
+     * Exact exponential delay
+     */
+    NONE,
+    /**
+     * Random delay between zero and the exponential delay, spreads retries the most
+     */
+    FULL,
+    /**
+     * Half of the exponential delay plus random delay up to the other half, so the delay still grows with attempts
+     */
+    EQUAL
+}
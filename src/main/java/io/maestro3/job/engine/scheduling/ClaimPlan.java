@@ -0,0 +1,40 @@
+package io.maestro3.job.engine.scheduling;
+
+import java.util.Set;
+
+/**
+ * Single claim requested by {@link ISchedulingPolicy}
+ */
+public class ClaimPlan {
+
+    private final Set<String> processorTypes;
+    private final int limit;
+    private final boolean sortByPriority;
+    private final long agingIntervalMillis;
+
+    public ClaimPlan(Set<String> processorTypes, int limit, boolean sortByPriority, long agingIntervalMillis) {
+        this.processorTypes = processorTypes;
+        this.limit = limit;
+        this.sortByPriority = sortByPriority;
+        this.agingIntervalMillis = agingIntervalMillis;
+    }
+
+    public Set<String> getProcessorTypes() {
+        return processorTypes;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isSortByPriority() {
+        return sortByPriority;
+    }
+
+    /**
+     * @return wait time which raises effective priority of a job by one, 0 if priorities do not age
+     */
+    public long getAgingIntervalMillis() {
+        return agingIntervalMillis;
+    }
+}
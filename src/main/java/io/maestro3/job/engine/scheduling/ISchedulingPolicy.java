@@ -0,0 +1,23 @@
+package io.maestro3.job.engine.scheduling;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides which jobs the manager requests from the store on each claim
+ */
+public interface ISchedulingPolicy {
+
+    /**
+     * @param processorTypes types which can be run now
+     * @param limit          number of free slots
+     * @return claims which are executed in order until the slots are filled
+     */
+    List<ClaimPlan> plan(Set<String> processorTypes, int limit);
+
+    /**
+     * Called after jobs of the type are claimed, lets the policy account for the service each type received
+     */
+    default void onJobsClaimed(String processorType, int count) {
+    }
+}
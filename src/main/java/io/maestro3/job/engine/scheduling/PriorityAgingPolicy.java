@@ -0,0 +1,26 @@
+package io.maestro3.job.engine.scheduling;
+
+import io.maestro3.job.engine.util.Assert;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Claims jobs by effective priority which rises by one every aging interval the job waits,
+ * so jobs of {@link io.maestro3.job.engine.model.IJob#MIN_PRIORITY_VALUE} are not starved by a stream of higher priority jobs
+ */
+public class PriorityAgingPolicy implements ISchedulingPolicy {
+
+    private final long agingIntervalMillis;
+
+    public PriorityAgingPolicy(long agingIntervalMillis) {
+        Assert.inRange(agingIntervalMillis, 1, Long.MAX_VALUE, "agingIntervalMillis");
+        this.agingIntervalMillis = agingIntervalMillis;
+    }
+
+    @Override
+    public List<ClaimPlan> plan(Set<String> processorTypes, int limit) {
+        return Collections.singletonList(new ClaimPlan(processorTypes, limit, true, agingIntervalMillis));
+    }
+}
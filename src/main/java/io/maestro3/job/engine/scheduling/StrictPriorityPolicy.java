@@ -0,0 +1,23 @@
+package io.maestro3.job.engine.scheduling;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Claims jobs of all types in one request, by priority if enabled and by date otherwise.
+ * Same as the manager behaviour without a policy
+ */
+public class StrictPriorityPolicy implements ISchedulingPolicy {
+
+    private final boolean sortByPriority;
+
+    public StrictPriorityPolicy(boolean sortByPriority) {
+        this.sortByPriority = sortByPriority;
+    }
+
+    @Override
+    public List<ClaimPlan> plan(Set<String> processorTypes, int limit) {
+        return Collections.singletonList(new ClaimPlan(processorTypes, limit, sortByPriority, 0));
+    }
+}
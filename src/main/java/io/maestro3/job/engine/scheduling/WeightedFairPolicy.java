@@ -0,0 +1,129 @@
+package io.maestro3.job.engine.scheduling;
+
+import io.maestro3.job.engine.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Weighted fair queuing across job types: each type has virtual time which grows by 1/weight per claimed job,
+ * free slots are split between types with the smallest virtual time. Type which was idle starts from the virtual
+ * time of the last served type, so it cannot monopolize slots with credit saved while idle. Slots left unused by
+ * types without jobs are offered to all types in the last claim, so the policy is work-conserving.
+ * <p>
+ * Costs one store request per type with free slots on each claim
+ */
+public class WeightedFairPolicy implements ISchedulingPolicy {
+
+    private final Map<String, Integer> weights;
+    private final int defaultWeight;
+    private final boolean sortByPriority;
+    private final long agingIntervalMillis;
+
+    // guarded by this
+    private final Map<String, Double> virtualTimes = new HashMap<>();
+    private double lastServedVirtualTime;
+
+    private WeightedFairPolicy(Builder builder) {
+        this.weights = Collections.unmodifiableMap(new HashMap<>(builder.weights));
+        this.defaultWeight = builder.defaultWeight;
+        this.sortByPriority = builder.sortByPriority;
+        this.agingIntervalMillis = builder.agingIntervalMillis;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public synchronized List<ClaimPlan> plan(Set<String> processorTypes, int limit) {
+        if (processorTypes.size() <= 1) {
+            return Collections.singletonList(new ClaimPlan(processorTypes, limit, sortByPriority, agingIntervalMillis));
+        }
+        final Map<String, Double> simulatedTimes = new HashMap<>();
+        for (final String processorType : processorTypes) {
+            simulatedTimes.put(processorType, startTime(processorType));
+        }
+        final Map<String, Integer> shares = new LinkedHashMap<>();
+        for (int slot = 0; slot < limit; slot++) {
+            final String processorType = Collections.min(simulatedTimes.entrySet(), Map.Entry.comparingByValue()).getKey();
+            simulatedTimes.merge(processorType, 1.0 / weightOf(processorType), Double::sum);
+            shares.merge(processorType, 1, Integer::sum);
+        }
+        final List<String> order = new ArrayList<>(shares.keySet());
+        order.sort(Comparator.comparingDouble(this::startTime));
+        final List<ClaimPlan> plans = new ArrayList<>(order.size() + 1);
+        for (final String processorType : order) {
+            plans.add(new ClaimPlan(Collections.singleton(processorType), shares.get(processorType), sortByPriority, agingIntervalMillis));
+        }
+        plans.add(new ClaimPlan(processorTypes, limit, sortByPriority, agingIntervalMillis));
+        return plans;
+    }
+
+    @Override
+    public synchronized void onJobsClaimed(String processorType, int count) {
+        final double startTime = startTime(processorType);
+        virtualTimes.put(processorType, startTime + (double) count / weightOf(processorType));
+        lastServedVirtualTime = startTime;
+    }
+
+    private double startTime(String processorType) {
+        return Math.max(virtualTimes.getOrDefault(processorType, 0.0), lastServedVirtualTime);
+    }
+
+    private int weightOf(String processorType) {
+        return weights.getOrDefault(processorType, defaultWeight);
+    }
+
+    public static final class Builder {
+        private final Map<String, Integer> weights = new HashMap<>();
+        private int defaultWeight = 1;
+        private boolean sortByPriority;
+        private long agingIntervalMillis;
+
+        private Builder() {
+        }
+
+        /**
+         * @param weight share of slots the type gets relative to other types under contention
+         */
+        public Builder withWeight(String processorType, int weight) {
+            this.weights.put(processorType, weight);
+            return this;
+        }
+
+        public Builder withDefaultWeight(int defaultWeight) {
+            this.defaultWeight = defaultWeight;
+            return this;
+        }
+
+        /**
+         * Order of jobs within a type
+         */
+        public Builder withPrioritySort(boolean sortByPriority) {
+            this.sortByPriority = sortByPriority;
+            return this;
+        }
+
+        /**
+         * Enables priority aging within a type, see {@link PriorityAgingPolicy}
+         */
+        public Builder withPriorityAging(long agingIntervalMillis) {
+            this.agingIntervalMillis = agingIntervalMillis;
+            return this;
+        }
+
+        public WeightedFairPolicy build() {
+            Assert.positiveInt(defaultWeight, "defaultWeight");
+            weights.forEach((type, weight) -> Assert.positiveInt(weight, "weight of " + type));
+            Assert.inRange(agingIntervalMillis, 0, Long.MAX_VALUE, "agingIntervalMillis");
+            return new WeightedFairPolicy(this);
+        }
+    }
+}
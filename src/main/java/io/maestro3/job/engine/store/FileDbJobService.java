@@ -0,0 +1,471 @@
+package io.maestro3.job.engine.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.maestro3.job.engine.exception.JsonConversionException;
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.JobStatus;
+import io.maestro3.job.engine.util.Assert;
+import io.maestro3.job.engine.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Durable single node store: every saved job and every deleted job is appended to a write-ahead log before the call
+ * returns. Writes of concurrent callers are grouped, so one fsync covers the whole group. On start the store loads
+ * the last snapshot and replays the log, a record torn by a crash is dropped. When deletion of executed jobs
+ * leaves the log much larger than the number of live jobs, the log is compacted into a new snapshot.
+ * <p>
+ * Claims and lease renewals are not logged, jobs which were PROCESSING when the store stopped are loaded as PENDING
+ */
+public class FileDbJobService<O> extends InMemoryDbJobService<O> implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileDbJobService.class);
+
+    private static final String LOG_FILE = "jobs.wal";
+    private static final String SNAPSHOT_FILE = "jobs.snapshot";
+    private static final String SNAPSHOT_TMP_FILE = "jobs.snapshot.tmp";
+    private static final byte SAVE_RECORD = 1;
+    private static final byte DELETE_RECORD = 2;
+    // length, checksum and record type
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + 1;
+    // longer record length can only come from a corrupted header
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private final Path directory;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final int compactionMinRecords;
+    private final BlockingQueue<LogRecord> pendingRecords = new LinkedBlockingQueue<>();
+    private final Object durableMonitor = new Object();
+    private final FileChannel logChannel;
+
+    // guarded by pendingRecords
+    private long enqueuedSequence;
+    // guarded by durableMonitor
+    private long durableSequence;
+    private IOException failure;
+    private boolean closed;
+
+    private volatile boolean replaying = true;
+    private volatile boolean running;
+    private volatile boolean compactionRequested;
+    private volatile long logRecords;
+    private Thread writerThread;
+
+    private FileDbJobService(Builder<O> builder) throws IOException {
+        this.directory = builder.directory;
+        this.reader = JsonUtils.readerFor(builder.jobType);
+        this.writer = JsonUtils.writerFor(builder.jobType);
+        this.compactionMinRecords = builder.compactionMinRecords;
+        Files.createDirectories(directory);
+        this.logChannel = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+        replaying = false;
+        start();
+    }
+
+    public static <E> Builder<E> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public void saveJob(IJob<O> job) {
+        super.saveJob(job);
+        awaitDurable(currentSequence());
+    }
+
+    @Override
+    public void saveJobs(Collection<IJob<O>> jobs) {
+        for (final IJob<O> job : jobs) {
+            super.saveJob(job);
+        }
+        awaitDurable(currentSequence());
+    }
+
+    @Override
+    public void releaseJobs(Collection<IJob<O>> jobs) {
+        for (final IJob<O> job : jobs) {
+            job.setStatus(JobStatus.PENDING);
+            job.setOwnerId(null);
+            job.setLeaseExpiryDate(null);
+            super.saveJob(job);
+        }
+        awaitDurable(currentSequence());
+    }
+
+    @Override
+    public int deleteExecutedJobs(int daysInterval) {
+        return onJobsDeleted(super.deleteExecutedJobs(daysInterval));
+    }
+
+    @Override
+    public int deleteExecutedJobs(Collection<String> jobIds) {
+        return onJobsDeleted(super.deleteExecutedJobs(jobIds));
+    }
+
+    private int onJobsDeleted(int removed) {
+        awaitDurable(currentSequence());
+        if (removed > 0 && logRecords > Math.max(compactionMinRecords, 2L * size())) {
+            compact();
+        }
+        return removed;
+    }
+
+    /**
+     * Requests background compaction of the log into a new snapshot
+     */
+    public void compact() {
+        compactionRequested = true;
+        synchronized (pendingRecords) {
+            pendingRecords.add(LogRecord.WAKE_UP);
+        }
+    }
+
+    /**
+     * Writes pending records and closes the log, the store must not be used afterwards
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        synchronized (pendingRecords) {
+            pendingRecords.add(LogRecord.WAKE_UP);
+        }
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            logChannel.close();
+            synchronized (durableMonitor) {
+                closed = true;
+                durableMonitor.notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LOG.error("Failed to close job log, cause: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    protected void onJobSaved(IJob<O> job) {
+        if (!replaying) {
+            append(SAVE_RECORD, serialize(job));
+        }
+    }
+
+    @Override
+    protected void onJobDeleted(IJob<O> job) {
+        if (!replaying) {
+            append(DELETE_RECORD, job.getId().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void append(byte type, byte[] payload) {
+        synchronized (pendingRecords) {
+            // sequence is assigned in queue order, so durable sequence covers every earlier record
+            pendingRecords.add(new LogRecord(++enqueuedSequence, frame(type, payload)));
+        }
+    }
+
+    private long currentSequence() {
+        synchronized (pendingRecords) {
+            return enqueuedSequence;
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        synchronized (durableMonitor) {
+            while (durableSequence < sequence && failure == null && !closed) {
+                try {
+                    durableMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for job log write", e);
+                }
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Job log is not writable", failure);
+            }
+            if (durableSequence < sequence) {
+                throw new IllegalStateException("Job store is closed");
+            }
+        }
+    }
+
+    private void start() {
+        running = true;
+        writerThread = new Thread(this::writeLoop, "job-engine-job-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    private void writeLoop() {
+        final List<LogRecord> batch = new ArrayList<>();
+        while (running || !pendingRecords.isEmpty()) {
+            try {
+                final LogRecord first = pendingRecords.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    pendingRecords.drainTo(batch);
+                    write(batch);
+                    batch.clear();
+                }
+                if (compactionRequested) {
+                    compactionRequested = false;
+                    writeSnapshot();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                LOG.error("Failed to write job log, cause: {}", e.getMessage());
+                synchronized (durableMonitor) {
+                    failure = e;
+                    durableMonitor.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private void write(List<LogRecord> batch) throws IOException {
+        final List<ByteBuffer> buffers = new ArrayList<>(batch.size());
+        long lastSequence = 0;
+        for (final LogRecord record : batch) {
+            if (record.data != null) {
+                buffers.add(ByteBuffer.wrap(record.data));
+                lastSequence = record.sequence;
+            }
+        }
+        if (buffers.isEmpty()) {
+            return;
+        }
+        final ByteBuffer[] data = buffers.toArray(new ByteBuffer[0]);
+        while (data[data.length - 1].hasRemaining()) {
+            logChannel.write(data);
+        }
+        // single fsync for the whole group of records
+        logChannel.force(false);
+        logRecords += buffers.size();
+        synchronized (durableMonitor) {
+            durableSequence = lastSequence;
+            durableMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Runs on the writer thread between writes. Records pending at this moment are appended to the new log,
+     * replaying them over the snapshot is harmless since every record holds whole state of the job
+     */
+    private void writeSnapshot() throws IOException {
+        final Path tmpFile = directory.resolve(SNAPSHOT_TMP_FILE);
+        final List<byte[]> jobs = copyJobs(this::serialize);
+        try (FileChannel snapshot = FileChannel.open(tmpFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (final byte[] job : jobs) {
+                final ByteBuffer buffer = ByteBuffer.wrap(frame(SAVE_RECORD, job));
+                while (buffer.hasRemaining()) {
+                    snapshot.write(buffer);
+                }
+            }
+            snapshot.force(true);
+        }
+        Files.move(tmpFile, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logChannel.truncate(0);
+        logChannel.position(0);
+        logChannel.force(true);
+        logRecords = 0;
+        LOG.info("[JobStore]: Job log compacted, snapshot contains {} jobs", jobs.size());
+    }
+
+    private void load() throws IOException {
+        final Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try (InputStream in = Files.newInputStream(snapshot)) {
+                final long snapshotSize = Files.size(snapshot);
+                final long validLength = replay(in, snapshotSize);
+                if (validLength < snapshotSize) {
+                    LOG.warn("[JobStore]: Ignoring {} bytes of corrupted job snapshot tail", snapshotSize - validLength);
+                }
+            }
+        }
+        final long validLength;
+        try (InputStream in = Files.newInputStream(directory.resolve(LOG_FILE))) {
+            validLength = replay(in, logChannel.size());
+        }
+        if (validLength < logChannel.size()) {
+            LOG.warn("[JobStore]: Dropping {} bytes of torn job log tail", logChannel.size() - validLength);
+            logChannel.truncate(validLength);
+        }
+        logChannel.position(validLength);
+        LOG.info("[JobStore]: Loaded {} jobs from {}", size(), directory);
+    }
+
+    /**
+     * A record is valid only if its length fits {@link #MAX_RECORD_SIZE} and the rest of the stream and its checksum
+     * matches, replay stops at the first invalid record, so a corrupted length is never allocated
+     *
+     * @param size size of the stream
+     * @return length of the valid prefix of the stream
+     */
+    private long replay(InputStream stream, long size) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        final CRC32 crc = new CRC32();
+        long validLength = 0;
+        long records = 0;
+        while (true) {
+            final byte[] data;
+            final int checksum;
+            try {
+                final int length = in.readInt();
+                checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE || length > size - validLength - Integer.BYTES * 2) {
+                    break;
+                }
+                data = new byte[length];
+                in.readFully(data);
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(data);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            apply(data);
+            validLength += Integer.BYTES * 2 + data.length;
+            records++;
+        }
+        logRecords += records;
+        return validLength;
+    }
+
+    private void apply(byte[] data) {
+        final byte type = data[0];
+        if (type == DELETE_RECORD) {
+            removeJob(new String(data, 1, data.length - 1, StandardCharsets.UTF_8));
+            return;
+        }
+        final IJob<O> job = deserialize(data);
+        if (job.getStatus() == JobStatus.PROCESSING) {
+            job.setStatus(JobStatus.PENDING);
+            job.setOwnerId(null);
+            job.setLeaseExpiryDate(null);
+        }
+        super.saveJob(job);
+    }
+
+    private byte[] serialize(IJob<O> job) {
+        try {
+            return writer.writeValueAsBytes(job);
+        } catch (Exception e) {
+            throw new JsonConversionException("Failed to convert job to json", e);
+        }
+    }
+
+    private IJob<O> deserialize(byte[] data) {
+        try {
+            return reader.readValue(data, 1, data.length - 1);
+        } catch (Exception e) {
+            throw new JsonConversionException("Failed to parse job", e);
+        }
+    }
+
+    private static byte[] frame(byte type, byte[] payload) {
+        if (payload.length + 1 > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Job record of " + payload.length + " bytes exceeds maximum record size " + MAX_RECORD_SIZE);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buffer.putInt(payload.length + 1);
+        buffer.putInt(0);
+        buffer.put(type);
+        buffer.put(payload);
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), Integer.BYTES * 2, payload.length + 1);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    private static final class LogRecord {
+
+        // wakes up the writer without writing anything
+        private static final LogRecord WAKE_UP = new LogRecord(0, null);
+
+        private final long sequence;
+        private final byte[] data;
+
+        LogRecord(long sequence, byte[] data) {
+            this.sequence = sequence;
+            this.data = data;
+        }
+    }
+
+    public static final class Builder<P> {
+        private static final int DEFAULT_COMPACTION_MIN_RECORDS = 10_000;
+
+        private Path directory;
+        private TypeReference<? extends IJob<P>> jobType;
+        private int compactionMinRecords = DEFAULT_COMPACTION_MIN_RECORDS;
+
+        private Builder() {
+        }
+
+        public Builder<P> withDirectory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * @param jobType class of jobs, they are stored as JSON
+         */
+        public Builder<P> withJobType(TypeReference<? extends IJob<P>> jobType) {
+            this.jobType = jobType;
+            return this;
+        }
+
+        /**
+         * @param compactionMinRecords log is not compacted while it has fewer records
+         */
+        public Builder<P> withCompactionMinRecords(int compactionMinRecords) {
+            this.compactionMinRecords = compactionMinRecords;
+            return this;
+        }
+
+        public FileDbJobService<P> build() {
+            Assert.notNull(directory, "directory must not be null");
+            Assert.notNull(jobType, "jobType must not be null");
+            Assert.positiveInt(compactionMinRecords, "compactionMinRecords");
+            try {
+                return new FileDbJobService<>(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open job store in " + directory, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,535 @@
+package io.maestro3.job.engine.store;
+
+import io.maestro3.job.engine.IDbJobService;
+import io.maestro3.job.engine.JobClaimRequest;
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.JobStatus;
+import io.maestro3.job.engine.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Embedded job store without global lock, for single node deployments, tests and benchmarks.
+ * Jobs are kept by reference, so callers must not modify saved jobs without saving them again.
+ * <p>
+ * Jobs ready for run are indexed per type and partition in two skip lists, by priority (higher value first) and date
+ * and by date only, so claim takes the best head in O(log n). POSTPONED jobs wait in a delay queue and become ready
+ * lazily on the next claim after their date. Claims read the date of the earliest postponed job without a lock and only
+ * one claimer at a time drains the delay queue, the others do not wait for it. SUCCESS jobs are indexed by processed date for {@link #deleteExecutedJobs(int)}
+ */
+public class InMemoryDbJobService<O> implements IDbJobService<O> {
+
+    private static final Comparator<ReadyEntry> BY_DATE = Comparator
+            .comparingLong((ReadyEntry entry) -> entry.date)
+            .thenComparingLong(entry -> entry.sequence);
+    private static final Comparator<ReadyEntry> BY_PRIORITY = Comparator
+            .comparingInt((ReadyEntry entry) -> -entry.priority)
+            .thenComparing(BY_DATE);
+    private static final Comparator<ExecutedEntry> BY_PROCESSED_DATE = Comparator
+            .comparingLong((ExecutedEntry entry) -> entry.processedDate)
+            .thenComparingLong(entry -> entry.sequence);
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<String, JobRecord<O>> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<Integer, ReadyQueue>> readyQueues = new ConcurrentHashMap<>();
+    private final DelayQueue<PostponedEntry> postponedJobs = new DelayQueue<>();
+    // lower bound of the date of the earliest postponed job, Long.MAX_VALUE if there are none
+    private final AtomicLong nextPromotionDate = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicBoolean promoting = new AtomicBoolean();
+    private final NavigableSet<ExecutedEntry> executedJobs = new ConcurrentSkipListSet<>(BY_PROCESSED_DATE);
+    private final Set<JobRecord<O>> processingJobs = ConcurrentHashMap.newKeySet();
+
+    public InMemoryDbJobService() {
+    }
+
+    @Override
+    public int deleteExecutedJobs(int daysInterval) {
+        final long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(daysInterval);
+        int removed = 0;
+        final Iterator<ExecutedEntry> iterator = executedJobs.iterator();
+        while (iterator.hasNext()) {
+            final ExecutedEntry entry = iterator.next();
+            if (entry.processedDate >= cutoff) {
+                break;
+            }
+            iterator.remove();
+            final JobRecord<O> record = recordOf(entry.record);
+            synchronized (record) {
+                if (record.executed == entry && jobs.remove(record.job.getId(), record)) {
+                    record.executed = null;
+                    onJobDeleted(record.job);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public List<IJob<O>> findExecutedJobs(Date processedBefore, int limit) {
+        final long cutoff = processedBefore.getTime();
+        final List<IJob<O>> result = new ArrayList<>(Math.min(limit, 1024));
+        for (final ExecutedEntry entry : executedJobs) {
+            if (entry.processedDate >= cutoff || result.size() >= limit) {
+                break;
+            }
+            result.add(recordOf(entry.record).job);
+        }
+        return result;
+    }
+
+    @Override
+    public int deleteExecutedJobs(Collection<String> jobIds) {
+        int removed = 0;
+        for (final String jobId : jobIds) {
+            final JobRecord<O> record = jobs.get(jobId);
+            if (record == null) {
+                continue;
+            }
+            synchronized (record) {
+                if (record.executed != null && jobs.remove(jobId, record)) {
+                    executedJobs.remove(record.executed);
+                    record.executed = null;
+                    onJobDeleted(record.job);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public IJob<O> getNextJobForRun(Set<String> processorTypes, boolean excludeTypes, boolean sortByPriority) {
+        return claim(processorTypes, excludeTypes, sortByPriority, 0, Collections.emptySet(), 1, null, null)
+                .stream().findFirst().orElse(null);
+    }
+
+    @Override
+    public List<IJob<O>> getNextJobsForRun(Set<String> processorTypes, boolean excludeTypes, boolean sortByPriority, int limit) {
+        return claim(processorTypes, excludeTypes, sortByPriority, 0, Collections.emptySet(), limit, null, null);
+    }
+
+    @Override
+    public List<IJob<O>> claimJobs(JobClaimRequest request) {
+        return claim(request.getProcessorTypes(), request.isExcludeTypes(), request.isSortByPriority(),
+                request.getAgingIntervalMillis(), request.getPartitions(), request.getLimit(), request.getOwnerId(), request.getLeaseExpiryDate());
+    }
+
+    @Override
+    public void renewLeases(String ownerId, Collection<String> jobIds, Date leaseExpiryDate) {
+        for (final String jobId : jobIds) {
+            final JobRecord<O> record = jobs.get(jobId);
+            if (record == null) {
+                continue;
+            }
+            synchronized (record) {
+                if (record.job.getStatus() == JobStatus.PROCESSING && ownerId.equals(record.job.getOwnerId())) {
+                    record.job.setLeaseExpiryDate(leaseExpiryDate);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int recoverExpiredJobs(Date expiredBefore) {
+        int recovered = 0;
+        for (final JobRecord<O> record : processingJobs) {
+            synchronized (record) {
+                final IJob<O> job = record.job;
+                final Date leaseExpiryDate = job.getLeaseExpiryDate();
+                if (job.getStatus() == JobStatus.PROCESSING && leaseExpiryDate != null && leaseExpiryDate.before(expiredBefore)) {
+                    job.setStatus(JobStatus.PENDING);
+                    job.setOwnerId(null);
+                    job.setLeaseExpiryDate(null);
+                    index(record);
+                    recovered++;
+                }
+            }
+        }
+        return recovered;
+    }
+
+    @Override
+    public void saveJob(IJob<O> job) {
+        Assert.notNull(job, "job must not be null");
+        Assert.notNull(job.getId(), "job id must not be null");
+        final JobRecord<O> record = jobs.computeIfAbsent(job.getId(), id -> new JobRecord<>(job));
+        synchronized (record) {
+            record.job = job;
+            index(record);
+            onJobSaved(job);
+        }
+    }
+
+    /**
+     * @return saved job, null if not found
+     */
+    public IJob<O> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(record -> record.job).orElse(null);
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+
+    /**
+     * Called under the lock of the job after it is saved, lets subclasses persist the change.
+     * Claims, lease renewals and recovery of PROCESSING jobs are not reported
+     */
+    protected void onJobSaved(IJob<O> job) {
+    }
+
+    /**
+     * Called under the lock of the job after it is removed by {@link #deleteExecutedJobs(int)} or {@link #deleteExecutedJobs(Collection)}
+     */
+    protected void onJobDeleted(IJob<O> job) {
+    }
+
+    /**
+     * Removes job without notifying {@link #onJobDeleted(IJob)}
+     *
+     * @return true if job was found
+     */
+    protected boolean removeJob(String jobId) {
+        final JobRecord<O> record = jobs.get(jobId);
+        if (record == null) {
+            return false;
+        }
+        synchronized (record) {
+            unindex(record);
+            return jobs.remove(jobId, record);
+        }
+    }
+
+    /**
+     * Copies all saved jobs at the moment of the call, every job is copied under its lock,
+     * so a copy never holds a half-applied update
+     *
+     * @param copier converts the job to a detached copy, must not keep the reference to the job
+     */
+    protected <T> List<T> copyJobs(Function<IJob<O>, T> copier) {
+        final List<T> result = new ArrayList<>(jobs.size());
+        for (final JobRecord<O> record : jobs.values()) {
+            synchronized (record) {
+                if (jobs.get(record.job.getId()) == record) {
+                    result.add(copier.apply(record.job));
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<IJob<O>> claim(Set<String> processorTypes, boolean excludeTypes, boolean sortByPriority, long agingIntervalMillis,
+                                Set<Integer> partitions, int limit, String ownerId, Date leaseExpiryDate) {
+        promotePostponedJobs();
+        final List<ReadyQueue> queues = selectQueues(processorTypes, excludeTypes, partitions);
+        final List<IJob<O>> claimed = new ArrayList<>(Math.min(limit, 64));
+        while (claimed.size() < limit) {
+            final ReadyEntry entry = agingIntervalMillis > 0
+                    ? bestAgedEntry(queues, agingIntervalMillis)
+                    : bestEntry(queues, sortByPriority);
+            if (entry == null) {
+                break;
+            }
+            if (!entry.claimed.compareAndSet(false, true)) {
+                continue;
+            }
+            entry.queue.byPriority.remove(entry);
+            entry.queue.byDate.remove(entry);
+            final IJob<O> job = claim(entry, ownerId, leaseExpiryDate);
+            if (job != null) {
+                claimed.add(job);
+            }
+        }
+        return claimed;
+    }
+
+    private IJob<O> claim(ReadyEntry entry, String ownerId, Date leaseExpiryDate) {
+        final JobRecord<O> record = recordOf(entry.record);
+        synchronized (record) {
+            if (record.ready != entry) {
+                return null;
+            }
+            record.ready = null;
+            final IJob<O> job = record.job;
+            job.setStatus(JobStatus.PROCESSING);
+            job.setOwnerId(ownerId);
+            job.setLeaseExpiryDate(leaseExpiryDate);
+            processingJobs.add(record);
+            return job;
+        }
+    }
+
+    private List<ReadyQueue> selectQueues(Set<String> processorTypes, boolean excludeTypes, Set<Integer> partitions) {
+        final List<ReadyQueue> queues = new ArrayList<>();
+        for (final Map.Entry<String, ConcurrentMap<Integer, ReadyQueue>> typeQueues : readyQueues.entrySet()) {
+            if (processorTypes.contains(typeQueues.getKey()) == excludeTypes) {
+                continue;
+            }
+            for (final Map.Entry<Integer, ReadyQueue> partitionQueue : typeQueues.getValue().entrySet()) {
+                if (partitions.isEmpty() || partitions.contains(partitionQueue.getKey())) {
+                    queues.add(partitionQueue.getValue());
+                }
+            }
+        }
+        return queues;
+    }
+
+    private static ReadyEntry bestEntry(List<ReadyQueue> queues, boolean sortByPriority) {
+        final Comparator<ReadyEntry> comparator = sortByPriority ? BY_PRIORITY : BY_DATE;
+        ReadyEntry bestEntry = null;
+        for (final ReadyQueue queue : queues) {
+            final ReadyEntry head = firstUnclaimed(queue.ordered(sortByPriority), Integer.MIN_VALUE);
+            if (head != null && (bestEntry == null || comparator.compare(head, bestEntry) < 0)) {
+                bestEntry = head;
+            }
+        }
+        return bestEntry;
+    }
+
+    /**
+     * Effective priority of a job grows by one every aging interval it waits, so the oldest job of every
+     * priority level is the only candidate of the level. Heads of levels are found in O(log n) by priority ordering
+     */
+    private static ReadyEntry bestAgedEntry(List<ReadyQueue> queues, long agingIntervalMillis) {
+        final long now = System.currentTimeMillis();
+        ReadyEntry bestEntry = null;
+        double bestPriority = 0;
+        for (final ReadyQueue queue : queues) {
+            ReadyEntry level = firstUnclaimed(queue.byPriority, Integer.MIN_VALUE);
+            while (level != null) {
+                final int priority = level.priority;
+                final ReadyEntry head = firstUnclaimed(queue.byPriority.tailSet(ReadyEntry.levelStart(priority), true), priority);
+                level = priority == Integer.MIN_VALUE ? null : queue.byPriority.ceiling(ReadyEntry.levelStart(priority - 1));
+                if (head == null) {
+                    continue;
+                }
+                final double effectivePriority = head.priority + (double) Math.max(now - head.date, 0) / agingIntervalMillis;
+                if (bestEntry == null || effectivePriority > bestPriority
+                        || (effectivePriority == bestPriority && BY_DATE.compare(head, bestEntry) < 0)) {
+                    bestEntry = head;
+                    bestPriority = effectivePriority;
+                }
+            }
+        }
+        return bestEntry;
+    }
+
+    /**
+     * @param priority priority the entry must have, {@link Integer#MIN_VALUE} for any
+     */
+    private static ReadyEntry firstUnclaimed(NavigableSet<ReadyEntry> entries, int priority) {
+        for (final ReadyEntry entry : entries) {
+            if (priority != Integer.MIN_VALUE && entry.priority != priority) {
+                return null;
+            }
+            if (!entry.claimed.get()) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void promotePostponedJobs() {
+        if (nextPromotionDate.get() > System.currentTimeMillis() || !promoting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // reset before draining, so a job postponed concurrently lowers the date again
+            nextPromotionDate.set(Long.MAX_VALUE);
+            PostponedEntry entry;
+            while ((entry = postponedJobs.poll()) != null) {
+                final JobRecord<O> record = recordOf(entry.record);
+                synchronized (record) {
+                    if (record.postponed == entry) {
+                        record.postponed = null;
+                        addReady(record);
+                    }
+                }
+            }
+            final PostponedEntry next = postponedJobs.peek();
+            if (next != null) {
+                nextPromotionDate.accumulateAndGet(next.date, Math::min);
+            }
+        } finally {
+            promoting.set(false);
+        }
+    }
+
+    /**
+     * Must be called under the lock of the record, moves the record to indexes of its current status
+     */
+    private void index(JobRecord<O> record) {
+        unindex(record);
+        final IJob<O> job = record.job;
+        final JobStatus status = job.getStatus();
+        if (status == JobStatus.PENDING) {
+            addReady(record);
+        } else if (status == JobStatus.POSTPONED) {
+            final long date = dateOf(job);
+            if (date <= System.currentTimeMillis()) {
+                addReady(record);
+            } else {
+                record.postponed = new PostponedEntry(record, date);
+                postponedJobs.add(record.postponed);
+                nextPromotionDate.accumulateAndGet(date, Math::min);
+            }
+        } else if (status == JobStatus.SUCCESS) {
+            final long processedDate = Optional.ofNullable(job.getProcessedDate()).map(Date::getTime).orElseGet(System::currentTimeMillis);
+            record.executed = new ExecutedEntry(record, processedDate, sequence.incrementAndGet());
+            executedJobs.add(record.executed);
+        } else if (status == JobStatus.PROCESSING) {
+            processingJobs.add(record);
+        }
+    }
+
+    private void unindex(JobRecord<O> record) {
+        if (record.ready != null) {
+            final ReadyEntry entry = record.ready;
+            record.ready = null;
+            if (entry.claimed.compareAndSet(false, true)) {
+                entry.queue.byPriority.remove(entry);
+                entry.queue.byDate.remove(entry);
+            }
+        }
+        if (record.postponed != null) {
+            postponedJobs.remove(record.postponed);
+            record.postponed = null;
+        }
+        if (record.executed != null) {
+            executedJobs.remove(record.executed);
+            record.executed = null;
+        }
+        processingJobs.remove(record);
+    }
+
+    private void addReady(JobRecord<O> record) {
+        final IJob<O> job = record.job;
+        final ReadyQueue queue = readyQueues
+                .computeIfAbsent(job.getType(), type -> new ConcurrentHashMap<>())
+                .computeIfAbsent(job.getPartition(), partition -> new ReadyQueue());
+        final ReadyEntry entry = new ReadyEntry(record, queue, job.getPriority(), dateOf(job), sequence.incrementAndGet());
+        record.ready = entry;
+        queue.byPriority.add(entry);
+        queue.byDate.add(entry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private JobRecord<O> recordOf(JobRecord<?> record) {
+        // entries are static to share comparators, records of this store always hold jobs of O
+        return (JobRecord<O>) record;
+    }
+
+    private static long dateOf(IJob<?> job) {
+        return Optional.ofNullable(job.getDate())
+                .or(() -> Optional.ofNullable(job.getCreatedDate()))
+                .map(Date::getTime)
+                .orElse(0L);
+    }
+
+    /**
+     * Job with its index entries, entries are replaced under the lock of the record
+     */
+    private static final class JobRecord<O> {
+
+        private volatile IJob<O> job;
+        private ReadyEntry ready;
+        private PostponedEntry postponed;
+        private ExecutedEntry executed;
+
+        JobRecord(IJob<O> job) {
+            this.job = job;
+        }
+    }
+
+    private static final class ReadyQueue {
+
+        private final NavigableSet<ReadyEntry> byPriority = new ConcurrentSkipListSet<>(BY_PRIORITY);
+        private final NavigableSet<ReadyEntry> byDate = new ConcurrentSkipListSet<>(BY_DATE);
+
+        NavigableSet<ReadyEntry> ordered(boolean sortByPriority) {
+            return sortByPriority ? byPriority : byDate;
+        }
+    }
+
+    /**
+     * Sort keys are copied from the job when it is enqueued, entry is claimed once by whichever ordering polls it first
+     */
+    private static final class ReadyEntry {
+
+        private final JobRecord<?> record;
+        private final ReadyQueue queue;
+        private final int priority;
+        private final long date;
+        private final long sequence;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        ReadyEntry(JobRecord<?> record, ReadyQueue queue, int priority, long date, long sequence) {
+            this.record = record;
+            this.queue = queue;
+            this.priority = priority;
+            this.date = date;
+            this.sequence = sequence;
+        }
+
+        /**
+         * @return probe which precedes every entry of the priority in priority ordering
+         */
+        static ReadyEntry levelStart(int priority) {
+            return new ReadyEntry(null, null, priority, Long.MIN_VALUE, Long.MIN_VALUE);
+        }
+    }
+
+    private static final class PostponedEntry implements Delayed {
+
+        private final JobRecord<?> record;
+        private final long date;
+
+        PostponedEntry(JobRecord<?> record, long date) {
+            this.record = record;
+            this.date = date;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(date - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static final class ExecutedEntry {
+
+        private final JobRecord<?> record;
+        private final long processedDate;
+        private final long sequence;
+
+        ExecutedEntry(JobRecord<?> record, long processedDate, long sequence) {
+            this.record = record;
+            this.processedDate = processedDate;
+            this.sequence = sequence;
+        }
+    }
+}
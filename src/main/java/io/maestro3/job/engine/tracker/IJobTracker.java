@@ -2,6 +2,8 @@ package io.maestro3.job.engine.tracker;
 
 import io.maestro3.job.engine.model.JobStats;
 import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.LatencyHistogram;
+import io.maestro3.job.engine.model.LatencyType;
 
 import java.util.Map;
 
@@ -23,6 +25,12 @@ public interface IJobTracker<O> {
 
     JobStats getCurrentStats();
 
+    /**
+     * @param lastMinutes time window, stats buckets which started within it are merged
+     * @return merged histogram of latencies of the given type
+     */
+    LatencyHistogram getLatency(LatencyType latencyType, int lastMinutes);
+
     String getSupportedJobType();
 
 }
\ No newline at end of file
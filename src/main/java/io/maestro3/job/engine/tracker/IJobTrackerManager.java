@@ -2,6 +2,8 @@ package io.maestro3.job.engine.tracker;
 
 import io.maestro3.job.engine.model.JobStats;
 import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.LatencyHistogram;
+import io.maestro3.job.engine.model.LatencyType;
 
 import java.util.Map;
 
@@ -23,4 +25,25 @@ public interface IJobTrackerManager<O> {
 
     JobStats getCurrentStats(String jobType);
 
+    /**
+     * @return latencies of the job type for the last minutes, p50/p95/p99 are available from the histogram
+     */
+    LatencyHistogram getLatency(String jobType, LatencyType latencyType, int lastMinutes);
+
+    /**
+     * Called when adaptive concurrency limit changes
+     *
+     * @param jobType type of the limit, null for the global limit
+     */
+    default void onConcurrencyLimitChanged(String jobType, int limit) {
+    }
+
+    /**
+     * @param jobType type of the limit, null for the global limit
+     * @return last reported adaptive concurrency limit, null if the limit is not adaptive
+     */
+    default Integer getConcurrencyLimit(String jobType) {
+        return null;
+    }
+
 }
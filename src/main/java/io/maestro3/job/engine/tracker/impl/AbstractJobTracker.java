@@ -2,27 +2,34 @@ package io.maestro3.job.engine.tracker.impl;
 
 import io.maestro3.job.engine.model.IJob;
 import io.maestro3.job.engine.model.JobStats;
+import io.maestro3.job.engine.model.LatencyHistogram;
+import io.maestro3.job.engine.model.LatencyType;
 import io.maestro3.job.engine.tracker.IJobTracker;
 
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public abstract class AbstractJobTracker<O> implements IJobTracker<O> {
 
     private final String jobType;
-    private final int statsGranularityMinutes;
-    private final Map<Long, JobStats> stats;
+    private final long granularityMillis;
+    // ring of time buckets, bucket index is derived from epoch time, so lookup does not lock or allocate
+    private final AtomicReferenceArray<JobStats> buckets;
 
     protected AbstractJobTracker(String jobType,
                                  int statsGranularityMinutes,
                                  int statsStorageMinutes) {
         this.jobType = jobType;
-        this.statsGranularityMinutes = statsGranularityMinutes;
-        int maxStatsDataPoints = statsStorageMinutes / statsGranularityMinutes;
-        this.stats = Collections.synchronizedMap(new JobStatsMap(maxStatsDataPoints));
+        this.granularityMillis = TimeUnit.MINUTES.toMillis(statsGranularityMinutes);
+        int maxStatsDataPoints = Math.max(statsStorageMinutes / statsGranularityMinutes, 1);
+        this.buckets = new AtomicReferenceArray<>(maxStatsDataPoints);
     }
 
     @Override
@@ -37,56 +44,108 @@ public abstract class AbstractJobTracker<O> implements IJobTracker<O> {
 
     @Override
     public void onStart(final IJob<O> job) {
+        final long now = System.currentTimeMillis();
+        final long dueTime = Math.max(timeOf(job.getCreatedDate(), now), timeOf(job.getDate(), 0));
+        getCurrentStats().addLatency(LatencyType.QUEUE_WAIT, now - Math.min(dueTime, now));
     }
 
     @Override
     public void onSuccess(final IJob<O> job) {
-        getCurrentStats().addSuccess();
+        final JobStats stats = getCurrentStats();
+        stats.addSuccess();
+        addCompletionLatencies(stats, job, true);
     }
 
     @Override
     public void onPostponed(final IJob<O> job) {
-        getCurrentStats().addPostponed();
+        final JobStats stats = getCurrentStats();
+        stats.addPostponed();
+        addCompletionLatencies(stats, job, false);
     }
 
     @Override
     public void onFailed(final IJob<O> job) {
-        getCurrentStats().addFailed();
+        final JobStats stats = getCurrentStats();
+        stats.addFailed();
+        addCompletionLatencies(stats, job, true);
     }
 
     @Override
     public void clear() {
-        stats.clear();
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, null);
+        }
     }
 
+    /**
+     * @return immutable snapshot of stored stats ordered by time
+     */
     @Override
     public Map<Long, JobStats> getStats() {
-        return stats;
-    }
+        final long oldestBucketTime = bucketTime(System.currentTimeMillis()) - (buckets.length() - 1) * granularityMillis;
+        final List<JobStats> actualStats = new ArrayList<>(buckets.length());
+        for (int i = 0; i < buckets.length(); i++) {
+            final JobStats stats = buckets.get(i);
+            if (stats != null && stats.getTime() >= oldestBucketTime) {
+                actualStats.add(stats.snapshot());
+            }
+        }
+        actualStats.sort(Comparator.comparingLong(JobStats::getTime));
 
-    @Override
-    public JobStats getCurrentStats() {
-        final long key = buildMapKey();
-        return stats.computeIfAbsent(key, JobStats::new);
+        final Map<Long, JobStats> snapshot = new LinkedHashMap<>();
+        actualStats.forEach(stats -> snapshot.put(stats.getTime(), stats));
+        return Collections.unmodifiableMap(snapshot);
     }
 
-    private long buildMapKey() {
-        final LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
-        final int truncatedToMinutes = now.getMinute() - now.getMinute() % statsGranularityMinutes;
-        return now.withSecond(0).withNano(0).withMinute(truncatedToMinutes).toInstant(ZoneOffset.UTC).toEpochMilli();
+    @Override
+    public LatencyHistogram getLatency(final LatencyType latencyType, final int lastMinutes) {
+        final long fromTime = bucketTime(System.currentTimeMillis()) - (lastMinutes - 1) * TimeUnit.MINUTES.toMillis(1);
+        final LatencyHistogram latency = new LatencyHistogram();
+        for (int i = 0; i < buckets.length(); i++) {
+            final JobStats stats = buckets.get(i);
+            if (stats != null && stats.getTime() >= fromTime) {
+                latency.merge(stats.getLatency(latencyType));
+            }
+        }
+        return latency.snapshot();
     }
 
-    private static final class JobStatsMap extends LinkedHashMap<Long, JobStats> {
-
-        private final int maxPoints;
+    @Override
+    public JobStats getCurrentStats() {
+        final long time = bucketTime(System.currentTimeMillis());
+        final int index = (int) ((time / granularityMillis) % buckets.length());
+        JobStats stats = buckets.get(index);
+        if (stats != null && stats.getTime() >= time) {
+            return stats;
+        }
 
-        private JobStatsMap(int maxPoints) {
-            this.maxPoints = maxPoints;
+        final JobStats newStats = new JobStats(time);
+        while (true) {
+            if (buckets.compareAndSet(index, stats, newStats)) {
+                return newStats;
+            }
+            stats = buckets.get(index);
+            if (stats != null && stats.getTime() >= time) {
+                return stats;
+            }
         }
+    }
 
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<Long, JobStats> eldest) {
-            return this.size() > maxPoints;
+    private static void addCompletionLatencies(final JobStats stats, final IJob<?> job, final boolean finalStatus) {
+        final long now = System.currentTimeMillis();
+        if (job.getStartedDate() != null) {
+            stats.addLatency(LatencyType.EXECUTION, now - job.getStartedDate().getTime());
+        }
+        if (finalStatus && job.getCreatedDate() != null) {
+            stats.addLatency(LatencyType.END_TO_END, now - job.getCreatedDate().getTime());
         }
     }
+
+    private static long timeOf(final Date date, final long defaultTime) {
+        return date == null ? defaultTime : date.getTime();
+    }
+
+    private long bucketTime(final long epochMillis) {
+        return epochMillis - epochMillis % granularityMillis;
+    }
 }
@@ -1,6 +1,8 @@
 package io.maestro3.job.engine.tracker.impl;
 
 import io.maestro3.job.engine.model.JobStats;
+import io.maestro3.job.engine.model.LatencyHistogram;
+import io.maestro3.job.engine.model.LatencyType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.maestro3.job.engine.model.IJob;
@@ -12,6 +14,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -20,6 +24,8 @@ public class JobTrackerManager<O> implements IJobTrackerManager<O> {
     private static final Logger LOG = LoggerFactory.getLogger(JobTrackerManager.class);
 
     private final Map<String, IJobTracker<O>> jobTrackersMap;
+    private final ConcurrentMap<String, Integer> concurrencyLimits = new ConcurrentHashMap<>();
+    private volatile Integer globalConcurrencyLimit;
 
     public JobTrackerManager(List<IJobTracker<O>> jobTrackers) {
         if (jobTrackers == null || jobTrackers.isEmpty()) {
@@ -78,6 +84,25 @@ public class JobTrackerManager<O> implements IJobTrackerManager<O> {
         return getFromTracker(jobType, IJobTracker::getCurrentStats);
     }
 
+    @Override
+    public LatencyHistogram getLatency(final String jobType, final LatencyType latencyType, final int lastMinutes) {
+        return getFromTracker(jobType, tracker -> tracker.getLatency(latencyType, lastMinutes));
+    }
+
+    @Override
+    public void onConcurrencyLimitChanged(final String jobType, final int limit) {
+        if (jobType == null) {
+            globalConcurrencyLimit = limit;
+        } else {
+            concurrencyLimits.put(jobType, limit);
+        }
+    }
+
+    @Override
+    public Integer getConcurrencyLimit(final String jobType) {
+        return jobType == null ? globalConcurrencyLimit : concurrencyLimits.get(jobType);
+    }
+
     private void callOnTracker(final String jobType,
                                final Consumer<IJobTracker<O>> consumer) {
         Optional.ofNullable(jobTrackersMap.get(jobType))
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -21,6 +23,8 @@ public final class JsonUtils {
             .registerModule(new JodaModule())
             .registerModule(new JavaTimeModule());
 
+    private static final ObjectWriter WRITER = MAPPER.writer();
+
     private JsonUtils() {
         throw new UnsupportedOperationException("Class is not designed for an instantiation");
     }
@@ -36,9 +40,20 @@ public final class JsonUtils {
         }
     }
 
+    /**
+     * Resolves reader once, so it can be reused for every value of the given type
+     */
+    public static <T> ObjectReader readerFor(final TypeReference<T> typeReference) {
+        return MAPPER.readerFor(typeReference);
+    }
+
+    public static <T> ObjectWriter writerFor(final TypeReference<T> typeReference) {
+        return MAPPER.writerFor(typeReference);
+    }
+
     public static String convertToJson(final Object object) {
         try {
-            return MAPPER.writer().writeValueAsString(object);
+            return WRITER.writeValueAsString(object);
         } catch (Exception e) {
             throw new JsonConversionException("Failed to convert object to json", e);
         }
@@ -1,7 +1,7 @@
 module io.maestro.job.engine {
     // JSON
     requires transitive com.fasterxml.jackson.core;
-    requires com.fasterxml.jackson.databind;
+    requires transitive com.fasterxml.jackson.databind;
     requires com.fasterxml.jackson.datatype.joda;
     requires com.fasterxml.jackson.datatype.jsr310;
 
@@ -10,8 +10,18 @@ module io.maestro.job.engine {
 
     requires org.apache.commons.lang3;
 
+    // MXBeans of resource approvers
+    requires java.management;
+
     exports io.maestro3.job.engine;
+    exports io.maestro3.job.engine.approver;
+    exports io.maestro3.job.engine.codec;
     exports io.maestro3.job.engine.exception;
+    exports io.maestro3.job.engine.limit;
     exports io.maestro3.job.engine.model;
+    exports io.maestro3.job.engine.partition;
+    exports io.maestro3.job.engine.retry;
+    exports io.maestro3.job.engine.scheduling;
+    exports io.maestro3.job.engine.store;
     exports io.maestro3.job.engine.tracker;
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.JobStatus;
+import io.maestro3.job.engine.store.InMemoryDbJobService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClaimFailureTest {
+
+    @Test
+    void runsJobsClaimedBeforeFailedRequest() throws Exception {
+        final FailingJobService jobService = new FailingJobService();
+        for (int i = 0; i < 3; i++) {
+            jobService.saveJob(job("free-" + i, "free"));
+            jobService.saveJob(job("limited-" + i, "limited"));
+        }
+        final TestJobProcessor freeProcessor = new TestJobProcessor("free");
+        final TestJobProcessor limitedProcessor = new TestJobProcessor("limited");
+        final JobManagerConfiguration<Void> configuration = JobManagerConfiguration.<Void>builder()
+                .withMaxConcurrentTasks(10)
+                .withPostponeCount(3)
+                .withPostponeMinutes(1)
+                .withJobsLifeTimeDays(1)
+                .withTypeConcurrencyLimit("limited", 2)
+                .withThreadFactory(Thread::new)
+                .build();
+        final AbstractJobManager<TestJobProcessor, Void> jobManager = new AbstractJobManager<TestJobProcessor, Void>(
+                jobService, Arrays.asList(freeProcessor, limitedProcessor), configuration) {
+        };
+        try {
+            assertEquals(3, jobManager.executePendingJobs());
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (freeProcessor.getCalls() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            jobManager.shutdown();
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(JobStatus.SUCCESS, jobService.getJob("free-" + i).getStatus());
+            assertEquals(JobStatus.PENDING, jobService.getJob("limited-" + i).getStatus());
+        }
+    }
+
+    private static TestJob job(String jobId, String jobType) {
+        final TestJob job = new TestJob(jobId, jobType);
+        job.setData("\"data\"");
+        return job;
+    }
+
+    /**
+     * Fails every claim of the limited type, which is claimed by its own request after the other types
+     */
+    private static final class FailingJobService extends InMemoryDbJobService<Void> {
+
+        @Override
+        public List<IJob<Void>> claimJobs(JobClaimRequest request) {
+            if (request.getProcessorTypes().contains("limited")) {
+                throw new IllegalStateException("store is not available");
+            }
+            return super.claimJobs(request);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package io.maestro3.job.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobManagerConfigurationTest {
+
+    @Test
+    void requiresLeaseForWriteBehind() {
+        assertThrows(IllegalArgumentException.class, () -> builder()
+                .withWriteBehind(10, 100)
+                .build());
+    }
+
+    @Test
+    void acceptsWriteBehindWithLease() {
+        final JobManagerConfiguration<Void> configuration = builder()
+                .withWriteBehind(10, 100)
+                .withProcessingLease(30_000)
+                .build();
+
+        assertTrue(configuration.useWriteBehind());
+    }
+
+    private static JobManagerConfiguration.Builder<Void> builder() {
+        return JobManagerConfiguration.<Void>builder()
+                .withMaxConcurrentTasks(1)
+                .withPostponeCount(3)
+                .withPostponeMinutes(1)
+                .withJobsLifeTimeDays(1)
+                .withThreadFactory(Thread::new);
+    }
+}
@@ -0,0 +1,72 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.JobStatus;
+import io.maestro3.job.engine.store.InMemoryDbJobService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JobPurgerTest {
+
+    @TempDir
+    Path archiveDirectory;
+
+    @Test
+    void purgesInChunks() {
+        final InMemoryDbJobService<Void> jobService = new InMemoryDbJobService<>();
+        for (int i = 0; i < 25; i++) {
+            jobService.saveJob(executedJob("old-" + i, TimeUnit.DAYS.toMillis(10)));
+        }
+        jobService.saveJob(executedJob("recent", 0));
+
+        final int removed = new JobPurger<>(jobService, 1, 10, 0, 10_000, archiveDirectory).purge();
+
+        assertEquals(25, removed);
+        assertNull(jobService.getJob("old-0"));
+        assertNotNull(jobService.getJob("recent"));
+    }
+
+    @Test
+    void deletesAtOnceWhenStoreHasNoChunkedPurge() {
+        final UnchunkedJobService jobService = new UnchunkedJobService();
+        jobService.saveJob(executedJob("old", TimeUnit.DAYS.toMillis(10)));
+
+        assertEquals(1, new JobPurger<>(jobService, 1, 10, 0, 10_000, null).purge());
+        assertNull(jobService.getJob("old"));
+    }
+
+    @Test
+    void keepsJobsWhichCanNotBeArchived() {
+        final UnchunkedJobService jobService = new UnchunkedJobService();
+        jobService.saveJob(executedJob("old", TimeUnit.DAYS.toMillis(10)));
+        final JobPurger<Void> purger = new JobPurger<>(jobService, 1, 10, 0, 10_000, archiveDirectory);
+
+        assertEquals(0, purger.purge());
+        assertEquals(0, purger.purge());
+        assertNotNull(jobService.getJob("old"));
+    }
+
+    private static TestJob executedJob(String jobId, long ageMillis) {
+        final TestJob job = new TestJob(jobId, "a");
+        job.setStatus(JobStatus.SUCCESS);
+        job.setProcessedDate(new Date(System.currentTimeMillis() - ageMillis));
+        return job;
+    }
+
+    private static final class UnchunkedJobService extends InMemoryDbJobService<Void> {
+
+        @Override
+        public List<IJob<Void>> findExecutedJobs(Date processedBefore, int limit) {
+            throw new UnsupportedOperationException("findExecutedJobs");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.maestro3.job.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JobTimingWheelTest {
+
+    private static final long TICK_MILLIS = 1000;
+
+    @Test
+    void reportsJobsAtTheirDueTick() {
+        final Map<String, Long> firedAtTick = new HashMap<>();
+        final Map<String, Integer> firedJobs = new HashMap<>();
+        final long[] currentTick = new long[1];
+        final JobTimingWheel wheel = new JobTimingWheel(TICK_MILLIS, dueJobs -> dueJobs.forEach((type, count) -> {
+            firedAtTick.putIfAbsent(type, currentTick[0]);
+            firedJobs.merge(type, count, Integer::sum);
+        }));
+        final long startTick = System.currentTimeMillis() / TICK_MILLIS;
+        final long startMillis = startTick * TICK_MILLIS;
+
+        // level 0, level 1 (above 64 ticks) and level 2 (above 64 * 64 ticks), each cascaded down before it fires
+        wheel.schedule("level-0", startMillis + 10 * TICK_MILLIS);
+        wheel.schedule("level-1", startMillis + 100 * TICK_MILLIS + 1);
+        wheel.schedule("level-2", startMillis + 5000 * TICK_MILLIS);
+        wheel.schedule("level-2", startMillis + 5000 * TICK_MILLIS - 1);
+
+        for (long tick = startTick + 1; tick <= startTick + 5100; tick++) {
+            currentTick[0] = tick;
+            wheel.advance(tick * TICK_MILLIS);
+        }
+
+        assertEquals(startTick + 10, firedAtTick.get("level-0"));
+        // due time inside a tick is rounded up, the job is never reported early
+        assertEquals(startTick + 101, firedAtTick.get("level-1"));
+        assertEquals(startTick + 5000, firedAtTick.get("level-2"));
+        assertEquals(1, firedJobs.get("level-0"));
+        assertEquals(1, firedJobs.get("level-1"));
+        assertEquals(2, firedJobs.get("level-2"));
+    }
+
+    @Test
+    void reportsOverdueJobsOnNextTick() {
+        final Map<String, Integer> firedJobs = new HashMap<>();
+        final JobTimingWheel wheel = new JobTimingWheel(TICK_MILLIS, dueJobs -> dueJobs.forEach((type, count) -> firedJobs.merge(type, count, Integer::sum)));
+        final long startTick = System.currentTimeMillis() / TICK_MILLIS;
+
+        wheel.schedule("overdue", (startTick - 10) * TICK_MILLIS);
+        wheel.advance(startTick * TICK_MILLIS);
+        assertEquals(0, firedJobs.size());
+
+        wheel.advance((startTick + 1) * TICK_MILLIS);
+        assertEquals(1, firedJobs.get("overdue"));
+    }
+}
@@ -0,0 +1,119 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.limit.AimdConcurrencyLimit;
+import io.maestro3.job.engine.limit.IConcurrencyLimit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobTypeConcurrencyLimitsTest {
+
+    private static final Set<String> JOB_TYPES = Set.of("slow", "fast", "adaptive");
+
+    @Test
+    void acquiresUpToLimitOfType() {
+        final JobTypeConcurrencyLimits limits = limits();
+
+        assertTrue(limits.tryAcquire("slow"));
+        assertTrue(limits.tryAcquire("slow"));
+        assertFalse(limits.tryAcquire("slow"));
+        assertEquals(2, limits.running("slow"));
+
+        limits.release("slow");
+        assertTrue(limits.tryAcquire("slow"));
+    }
+
+    @Test
+    void typeWithoutLimitIsNotBounded() {
+        final JobTypeConcurrencyLimits limits = limits();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limits.tryAcquire("fast"));
+        }
+        assertEquals(Integer.MAX_VALUE, limits.freeSlots("fast"));
+        assertEquals(Integer.MAX_VALUE, limits.freeSlots(JOB_TYPES));
+    }
+
+    @Test
+    void claimBudgetsContainFreeSlotsOfLimitedTypesOnly() {
+        final JobTypeConcurrencyLimits limits = limits();
+        limits.tryAcquire("slow");
+        limits.tryAcquire("adaptive");
+
+        final Map<String, Integer> budgets = limits.claimBudgets(JOB_TYPES);
+
+        assertEquals(Map.of("slow", 1, "adaptive", 2), budgets);
+        assertEquals(Set.of("slow", "fast", "adaptive"), limits.availableTypes(JOB_TYPES));
+
+        limits.tryAcquire("slow");
+        assertEquals(Map.of("slow", 0, "adaptive", 2), limits.claimBudgets(JOB_TYPES));
+        assertEquals(Set.of("fast", "adaptive"), limits.availableTypes(JOB_TYPES));
+    }
+
+    @Test
+    void adaptiveLimitOverridesFixedLimit() {
+        final JobTypeConcurrencyLimits limits = limits();
+
+        assertEquals(3, limits.freeSlots("adaptive"));
+        assertNotNull(limits.adaptiveLimit("adaptive"));
+        assertNull(limits.adaptiveLimit("slow"));
+    }
+
+    @Test
+    void concurrentAcquireNeverExceedsLimit() throws Exception {
+        final JobTypeConcurrencyLimits limits = new JobTypeConcurrencyLimits(Map.of("slow", 4), Collections.emptyMap(), JOB_TYPES);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 16; thread++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10_000; i++) {
+                        if (limits.tryAcquire("slow")) {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            running.decrementAndGet();
+                            limits.release("slow");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(maxRunning.get() <= 4, "max running " + maxRunning.get());
+        assertEquals(0, limits.running("slow"));
+    }
+
+    private static JobTypeConcurrencyLimits limits() {
+        final IConcurrencyLimit adaptiveLimit = AimdConcurrencyLimit.builder()
+                .withMaxLimit(10)
+                .withInitialLimit(3)
+                .build();
+        return new JobTypeConcurrencyLimits(Map.of("slow", 2, "adaptive", 1), Map.of("adaptive", adaptiveLimit), JOB_TYPES);
+    }
+}
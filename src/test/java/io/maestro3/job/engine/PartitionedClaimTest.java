@@ -0,0 +1,86 @@
+package io.maestro3.job.engine;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.IJobDefinition;
+import io.maestro3.job.engine.model.JobStatus;
+import io.maestro3.job.engine.partition.JobPartitions;
+import io.maestro3.job.engine.partition.LocalClusterMembership;
+import io.maestro3.job.engine.store.InMemoryDbJobService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PartitionedClaimTest {
+
+    private static final String JOB_TYPE = "partitioned";
+    private static final int PARTITION_COUNT = 8;
+
+    @Test
+    void claimsJobsWithoutPartition() throws Exception {
+        final InMemoryDbJobService<Void> jobService = new InMemoryDbJobService<>();
+        final TestJob plainJob = new TestJob("plain", JOB_TYPE);
+        plainJob.setData("\"data\"");
+        jobService.saveJob(plainJob);
+        final TestJob partitionedJob = new TestJob("partitioned", JOB_TYPE);
+        partitionedJob.setData("\"data\"");
+        JobPartitions.assignPartition(partitionedJob, PARTITION_COUNT);
+        jobService.saveJob(partitionedJob);
+
+        final RecordingProcessor processor = new RecordingProcessor();
+        final JobManagerConfiguration<Void> configuration = JobManagerConfiguration.<Void>builder()
+                .withMaxConcurrentTasks(2)
+                .withPostponeCount(3)
+                .withPostponeMinutes(1)
+                .withJobsLifeTimeDays(1)
+                .withNodeId("single-node")
+                .withPartitioning(PARTITION_COUNT, new LocalClusterMembership())
+                .withThreadFactory(Thread::new)
+                .build();
+        final AbstractJobManager<RecordingProcessor, Void> jobManager =
+                new AbstractJobManager<RecordingProcessor, Void>(jobService, Collections.singletonList(processor), configuration) {
+                };
+        try {
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (processor.calls.get() < 2 && System.currentTimeMillis() < deadline) {
+                jobManager.executePendingJobs();
+                Thread.sleep(10);
+            }
+        } finally {
+            jobManager.shutdown();
+        }
+
+        assertEquals(IJob.NO_PARTITION, jobService.getJob("plain").getPartition());
+        assertEquals(JobStatus.SUCCESS, jobService.getJob("plain").getStatus());
+        assertEquals(JobStatus.SUCCESS, jobService.getJob("partitioned").getStatus());
+    }
+
+    private static final class RecordingProcessor implements IJobProcessor<String> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public IJobDefinition<String> getJobDefinition() {
+            return new IJobDefinition<String>() {
+                @Override
+                public String getProcessorType() {
+                    return JOB_TYPE;
+                }
+
+                @Override
+                public TypeReference<String> getClassReference() {
+                    return new TypeReference<String>() {
+                    };
+                }
+            };
+        }
+
+        @Override
+        public void execute(String data) {
+            calls.incrementAndGet();
+        }
+    }
+}
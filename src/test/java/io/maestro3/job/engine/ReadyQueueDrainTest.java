@@ -0,0 +1,97 @@
+package io.maestro3.job.engine;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.maestro3.job.engine.model.IJobDefinition;
+import io.maestro3.job.engine.model.JobStatus;
+import io.maestro3.job.engine.store.InMemoryDbJobService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadyQueueDrainTest {
+
+    private static final String JOB_TYPE = "drain";
+    private static final int JOBS = 5000;
+
+    @Test
+    void drainsReadyQueueWithoutGrowingStack() throws Exception {
+        final InMemoryDbJobService<Void> jobService = new InMemoryDbJobService<>();
+        for (int i = 0; i < JOBS; i++) {
+            final TestJob job = new TestJob("job-" + i, JOB_TYPE);
+            job.setData("\"data\"");
+            jobService.saveJob(job);
+        }
+        final StackDepthProcessor processor = new StackDepthProcessor();
+        final JobManagerConfiguration<Void> configuration = JobManagerConfiguration.<Void>builder()
+                .withMaxConcurrentTasks(1)
+                .withPostponeCount(3)
+                .withPostponeMinutes(1)
+                .withJobsLifeTimeDays(1)
+                .withReadyQueue(JOBS, JOBS / 2)
+                .withThreadFactory(Thread::new)
+                .build();
+        final AbstractJobManager<StackDepthProcessor, Void> jobManager =
+                new AbstractJobManager<StackDepthProcessor, Void>(jobService, Collections.singletonList(processor), configuration) {
+                };
+        try {
+            final long deadline = System.currentTimeMillis() + 30_000;
+            while (processor.calls.get() < JOBS && System.currentTimeMillis() < deadline) {
+                jobManager.executePendingJobs();
+                Thread.sleep(10);
+            }
+        } finally {
+            jobManager.shutdown();
+        }
+
+        assertEquals(JOBS, processor.calls.get());
+        assertEquals(JOBS, countSucceeded(jobService));
+        // the first job of a worker is one frame shallower than jobs drained after it, recursion would add frames per job
+        assertTrue(processor.maxDepth.get() - processor.minDepth.get() <= 2,
+                "stack depth grew from " + processor.minDepth.get() + " to " + processor.maxDepth.get());
+    }
+
+    private static int countSucceeded(InMemoryDbJobService<Void> jobService) {
+        int succeeded = 0;
+        for (int i = 0; i < JOBS; i++) {
+            if (jobService.getJob("job-" + i).getStatus() == JobStatus.SUCCESS) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    private static final class StackDepthProcessor implements IJobProcessor<String> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger minDepth = new AtomicInteger(Integer.MAX_VALUE);
+        private final AtomicInteger maxDepth = new AtomicInteger();
+
+        @Override
+        public IJobDefinition<String> getJobDefinition() {
+            return new IJobDefinition<String>() {
+                @Override
+                public String getProcessorType() {
+                    return JOB_TYPE;
+                }
+
+                @Override
+                public TypeReference<String> getClassReference() {
+                    return new TypeReference<String>() {
+                    };
+                }
+            };
+        }
+
+        @Override
+        public void execute(String data) {
+            final int depth = new Throwable().getStackTrace().length;
+            minDepth.accumulateAndGet(depth, Math::min);
+            maxDepth.accumulateAndGet(depth, Math::max);
+            calls.incrementAndGet();
+        }
+    }
+}
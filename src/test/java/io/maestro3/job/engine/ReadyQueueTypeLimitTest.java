@@ -0,0 +1,114 @@
+package io.maestro3.job.engine;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.IJobDefinition;
+import io.maestro3.job.engine.model.JobStatus;
+import io.maestro3.job.engine.store.InMemoryDbJobService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReadyQueueTypeLimitTest {
+
+    private static final int JOBS = 10;
+
+    @Test
+    void keepsLimitedJobsInStoreUntilTypeHasFreeSlot() throws Exception {
+        final ReleaseCountingJobService jobService = new ReleaseCountingJobService();
+        for (int i = 0; i < JOBS; i++) {
+            jobService.saveJob(job("free-" + i, "free"));
+            jobService.saveJob(job("limited-" + i, "limited"));
+        }
+        final SlowProcessor freeProcessor = new SlowProcessor("free");
+        final SlowProcessor limitedProcessor = new SlowProcessor("limited");
+        final JobManagerConfiguration<Void> configuration = JobManagerConfiguration.<Void>builder()
+                .withMaxConcurrentTasks(4)
+                .withPostponeCount(3)
+                .withPostponeMinutes(1)
+                .withJobsLifeTimeDays(1)
+                .withTypeConcurrencyLimit("limited", 1)
+                .withReadyQueue(8, 2)
+                .withThreadFactory(Thread::new)
+                .build();
+        final AbstractJobManager<SlowProcessor, Void> jobManager = new AbstractJobManager<SlowProcessor, Void>(
+                jobService, Arrays.asList(freeProcessor, limitedProcessor), configuration) {
+        };
+        try {
+            final long deadline = System.currentTimeMillis() + 20_000;
+            while ((freeProcessor.calls.get() < JOBS || limitedProcessor.calls.get() < JOBS)
+                    && System.currentTimeMillis() < deadline) {
+                jobManager.executePendingJobs();
+                Thread.sleep(10);
+            }
+        } finally {
+            jobManager.shutdown();
+        }
+
+        for (int i = 0; i < JOBS; i++) {
+            assertEquals(JobStatus.SUCCESS, jobService.getJob("free-" + i).getStatus());
+            assertEquals(JobStatus.SUCCESS, jobService.getJob("limited-" + i).getStatus());
+        }
+        assertEquals(1, limitedProcessor.maxRunning.get());
+        assertEquals(0, jobService.releasedJobs.get());
+    }
+
+    private static TestJob job(String jobId, String jobType) {
+        final TestJob job = new TestJob(jobId, jobType);
+        job.setData("\"data\"");
+        return job;
+    }
+
+    private static final class ReleaseCountingJobService extends InMemoryDbJobService<Void> {
+
+        private final AtomicInteger releasedJobs = new AtomicInteger();
+
+        @Override
+        public void releaseJob(IJob<Void> job) {
+            releasedJobs.incrementAndGet();
+            super.releaseJob(job);
+        }
+    }
+
+    private static final class SlowProcessor implements IJobProcessor<String> {
+
+        private final String processorType;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        private SlowProcessor(String processorType) {
+            this.processorType = processorType;
+        }
+
+        @Override
+        public IJobDefinition<String> getJobDefinition() {
+            return new IJobDefinition<String>() {
+                @Override
+                public String getProcessorType() {
+                    return processorType;
+                }
+
+                @Override
+                public TypeReference<String> getClassReference() {
+                    return new TypeReference<String>() {
+                    };
+                }
+            };
+        }
+
+        @Override
+        public void execute(String data) throws InterruptedException {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } finally {
+                running.decrementAndGet();
+                calls.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package io.maestro3.job.engine;
+
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.JobStatus;
+
+import java.util.Date;
+
+/**
+ * Plain job for tests, serializable to JSON by stores
+ */
+public class TestJob implements IJob<Void> {
+
+    private String id;
+    private String type;
+    private String data;
+    private JobStatus status = JobStatus.PENDING;
+    private Date date = new Date();
+    private String lastErrorMessage;
+    private Date createdDate = new Date();
+    private Date startedDate;
+    private Date processedDate;
+    private Date lastErrorDate;
+    private int postponeCount;
+    private int priority = DEFAULT_PRIORITY_VALUE;
+    private String operationId;
+    private String result;
+    private String ownerId;
+    private Date leaseExpiryDate;
+    private int partition = NO_PARTITION;
+
+    public TestJob() {
+    }
+
+    public TestJob(String id, String type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    @Override
+    public String getData() {
+        return data;
+    }
+
+    @Override
+    public void setData(String data) {
+        this.data = data;
+    }
+
+    @Override
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    @Override
+    public Date getDate() {
+        return date;
+    }
+
+    @Override
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    @Override
+    public String getLastErrorMessage() {
+        return lastErrorMessage;
+    }
+
+    @Override
+    public void setLastErrorMessage(String lastErrorMessage) {
+        this.lastErrorMessage = lastErrorMessage;
+    }
+
+    @Override
+    public Date getCreatedDate() {
+        return createdDate;
+    }
+
+    @Override
+    public void setCreatedDate(Date createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public Date getStartedDate() {
+        return startedDate;
+    }
+
+    @Override
+    public void setStartedDate(Date startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    @Override
+    public Date getProcessedDate() {
+        return processedDate;
+    }
+
+    @Override
+    public void setProcessedDate(Date processedDate) {
+        this.processedDate = processedDate;
+    }
+
+    @Override
+    public Date getLastErrorDate() {
+        return lastErrorDate;
+    }
+
+    @Override
+    public void setLastErrorDate(Date lastErrorDate) {
+        this.lastErrorDate = lastErrorDate;
+    }
+
+    @Override
+    public int getPostponeCount() {
+        return postponeCount;
+    }
+
+    @Override
+    public void setPostponeCount(int postponeCount) {
+        this.postponeCount = postponeCount;
+    }
+
+    @Override
+    public void incPostponeCount() {
+        postponeCount++;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    @Override
+    public String getOperationId() {
+        return operationId;
+    }
+
+    @Override
+    public void setOperationId(String operationId) {
+        this.operationId = operationId;
+    }
+
+    @Override
+    public String getResult() {
+        return result;
+    }
+
+    @Override
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    @Override
+    public Void getOperation() {
+        return null;
+    }
+
+    @Override
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    @Override
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    @Override
+    public Date getLeaseExpiryDate() {
+        return leaseExpiryDate;
+    }
+
+    @Override
+    public void setLeaseExpiryDate(Date leaseExpiryDate) {
+        this.leaseExpiryDate = leaseExpiryDate;
+    }
+
+    @Override
+    public int getPartition() {
+        return partition;
+    }
+
+    @Override
+    public void setPartition(int partition) {
+        this.partition = partition;
+    }
+}
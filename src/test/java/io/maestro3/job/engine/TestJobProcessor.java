@@ -0,0 +1,44 @@
+package io.maestro3.job.engine;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.maestro3.job.engine.model.IJobDefinition;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processor of string jobs for tests, counts executed jobs
+ */
+public class TestJobProcessor implements IJobProcessor<String> {
+
+    private final String processorType;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public TestJobProcessor(String processorType) {
+        this.processorType = processorType;
+    }
+
+    public int getCalls() {
+        return calls.get();
+    }
+
+    @Override
+    public IJobDefinition<String> getJobDefinition() {
+        return new IJobDefinition<String>() {
+            @Override
+            public String getProcessorType() {
+                return processorType;
+            }
+
+            @Override
+            public TypeReference<String> getClassReference() {
+                return new TypeReference<String>() {
+                };
+            }
+        };
+    }
+
+    @Override
+    public void execute(String data) {
+        calls.incrementAndGet();
+    }
+}
@@ -0,0 +1,86 @@
+package io.maestro3.job.engine.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AimdConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void growsByAboutOneAfterLimitManySuccesses() {
+        final AimdConcurrencyLimit limit = limit(10, 100);
+
+        for (int i = 0; i < 9; i++) {
+            limit.onSample(FAST, 10, false);
+        }
+        assertEquals(10, limit.getLimit());
+
+        for (int i = 0; i < 3; i++) {
+            limit.onSample(FAST, 10, false);
+        }
+        assertEquals(11, limit.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhileMostOfLimitIsUnused() {
+        final AimdConcurrencyLimit limit = limit(10, 100);
+
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(FAST, 4, false);
+        }
+
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void backsOffOnFailureAndSlowJob() {
+        final AimdConcurrencyLimit limit = limit(50, 100);
+
+        limit.onSample(FAST, 50, true);
+        assertEquals(45, limit.getLimit());
+
+        limit.onSample(SLOW, 45, false);
+        assertEquals(40, limit.getLimit());
+    }
+
+    @Test
+    void staysWithinBounds() {
+        final AimdConcurrencyLimit limit = limit(10, 20);
+
+        for (int i = 0; i < 10_000; i++) {
+            limit.onSample(FAST, 20, false);
+        }
+        assertEquals(20, limit.getLimit());
+
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(FAST, 20, true);
+        }
+        assertEquals(5, limit.getLimit());
+    }
+
+    @Test
+    void builderRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> AimdConcurrencyLimit.builder().build());
+        assertThrows(IllegalArgumentException.class, () -> AimdConcurrencyLimit.builder()
+                .withMinLimit(10).withMaxLimit(5).build());
+        assertThrows(IllegalArgumentException.class, () -> AimdConcurrencyLimit.builder()
+                .withMaxLimit(10).withInitialLimit(20).build());
+        assertThrows(IllegalArgumentException.class, () -> AimdConcurrencyLimit.builder()
+                .withMaxLimit(10).withBackoffRatio(1).build());
+    }
+
+    private static AimdConcurrencyLimit limit(int initialLimit, int maxLimit) {
+        return AimdConcurrencyLimit.builder()
+                .withMinLimit(5)
+                .withMaxLimit(maxLimit)
+                .withInitialLimit(initialLimit)
+                .withLatencyThresholdMillis(100)
+                .build();
+    }
+}
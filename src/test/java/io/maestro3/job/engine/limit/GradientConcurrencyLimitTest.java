@@ -0,0 +1,109 @@
+package io.maestro3.job.engine.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientConcurrencyLimitTest {
+
+    private static final long NO_LOAD = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long QUEUED = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void growsWhileLatencyStaysAtNoLoadLevel() {
+        final GradientConcurrencyLimit limit = limit(100);
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(NO_LOAD, limit.getLimit(), false);
+        }
+
+        assertTrue(limit.getLimit() > 20, "limit " + limit.getLimit() + " did not grow");
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        final GradientConcurrencyLimit limit = limit(100);
+        limit.onSample(NO_LOAD, 20, false);
+        final int grownLimit = limit.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(QUEUED, limit.getLimit(), false);
+        }
+
+        assertTrue(limit.getLimit() < grownLimit, "limit " + limit.getLimit() + " did not shrink from " + grownLimit);
+        assertTrue(limit.getLimit() >= 5, "limit " + limit.getLimit() + " is below min limit");
+    }
+
+    @Test
+    void followsNoLoadLatencyOfRecentWindow() {
+        final GradientConcurrencyLimit limit = limit(100);
+        limit.onSample(NO_LOAD, 20, false);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(QUEUED, limit.getLimit(), false);
+        }
+        final int shrunkLimit = limit.getLimit();
+
+        // downstream became slower for good, after a full window its latency is the new no-load latency
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(QUEUED, limit.getLimit(), false);
+        }
+
+        assertTrue(shrunkLimit < 20, "limit " + shrunkLimit + " did not shrink");
+        assertTrue(limit.getLimit() > shrunkLimit, "limit " + limit.getLimit() + " did not recover from " + shrunkLimit);
+    }
+
+    @Test
+    void ignoresLatencyWhileMostOfLimitIsUnused() {
+        final GradientConcurrencyLimit limit = limit(100);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(QUEUED, 5, false);
+        }
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void backsOffOnFailure() {
+        final GradientConcurrencyLimit limit = limit(100);
+
+        limit.onSample(NO_LOAD, 20, true);
+
+        assertEquals(18, limit.getLimit());
+    }
+
+    @Test
+    void staysWithinMaxLimit() {
+        final GradientConcurrencyLimit limit = limit(100);
+
+        for (int i = 0; i < 10_000; i++) {
+            limit.onSample(NO_LOAD, limit.getLimit(), false);
+        }
+
+        assertEquals(50, limit.getLimit());
+    }
+
+    @Test
+    void builderRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> GradientConcurrencyLimit.builder().build());
+        assertThrows(IllegalArgumentException.class, () -> GradientConcurrencyLimit.builder()
+                .withMaxLimit(10).withSmoothing(0).build());
+        assertThrows(IllegalArgumentException.class, () -> GradientConcurrencyLimit.builder()
+                .withMaxLimit(10).withTolerance(0.5).build());
+        assertThrows(IllegalArgumentException.class, () -> GradientConcurrencyLimit.builder()
+                .withMaxLimit(10).withWindow(0).build());
+    }
+
+    private static GradientConcurrencyLimit limit(int window) {
+        return GradientConcurrencyLimit.builder()
+                .withMinLimit(5)
+                .withMaxLimit(50)
+                .withInitialLimit(20)
+                .withWindow(window)
+                .build();
+    }
+}
@@ -0,0 +1,269 @@
+package io.maestro3.job.engine.operation.impl;
+
+import io.maestro3.job.engine.operation.IOperationSpillStore;
+import io.maestro3.job.engine.operation.OperationExecutionHolderConfiguration;
+import io.maestro3.job.engine.operation.OperationKey;
+import io.maestro3.job.engine.operation.OperationLogChunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AbstractOperationExecutionHolderTest {
+
+    private static final OperationKey KEY = new Key("key");
+
+    @Test
+    void findsExecutionIgnoringCase() {
+        final Holder holder = new Holder(OperationExecutionHolderConfiguration.<Op>builder().build());
+        holder.create(KEY, new Op("Op-1", 1, "created"));
+        holder.write(KEY, new Op("Op-1", 1, "created"), "output");
+
+        assertEquals("Op-1", holder.getExecution("op-1").id);
+        assertEquals("Op-1", holder.getExecution("OP-1").id);
+        assertEquals("output", holder.readLog("OP-1", 0).getText());
+    }
+
+    @Test
+    void readsLogFromOffsetAcrossChunks() {
+        final Holder holder = new Holder(OperationExecutionHolderConfiguration.<Op>builder()
+                .withMaxLogLength(100_000)
+                .build());
+        final Op operation = new Op("op", 1, "running");
+        holder.create(KEY, operation);
+        final String text = repeat('a', 5000) + repeat('b', 5000) + repeat('c', 5000);
+        holder.write(KEY, operation, text.substring(0, 5000));
+        holder.write(KEY, operation, text.substring(5000, 10000));
+        holder.write(KEY, operation, text.substring(10000));
+
+        final OperationLogChunk fromStart = holder.readLog("op", 0);
+        assertEquals(text, fromStart.getText());
+        assertEquals(15000, fromStart.getNextOffset());
+        // offset inside the first 8K chunk, result spans the chunk boundary
+        final OperationLogChunk fromMiddle = holder.readLog("op", 7000);
+        assertEquals(7000, fromMiddle.getFromOffset());
+        assertEquals(text.substring(7000), fromMiddle.getText());
+        assertFalse(fromMiddle.isTruncated());
+        final OperationLogChunk fromEnd = holder.readLog("op", fromStart.getNextOffset());
+        assertEquals("", fromEnd.getText());
+        assertEquals(15000, fromEnd.getNextOffset());
+    }
+
+    @Test
+    void reportsDroppedOutputWhenOldChunksAreRemoved() {
+        final Holder holder = new Holder(OperationExecutionHolderConfiguration.<Op>builder()
+                .withMaxLogLength(10_000)
+                .build());
+        final Op operation = new Op("op", 1, "running");
+        holder.create(KEY, operation);
+        for (int i = 0; i < 3; i++) {
+            holder.write(KEY, operation, repeat((char) ('a' + i), 5000));
+        }
+
+        final OperationLogChunk chunk = holder.readLog("op", 0);
+        assertTrue(chunk.isTruncated());
+        assertEquals(15000 - chunk.getText().length(), chunk.getFromOffset());
+        assertEquals(15000, chunk.getNextOffset());
+        assertTrue(chunk.getText().endsWith(repeat('c', 5000)));
+    }
+
+    @Test
+    void evictsExpiredExecutionsToSpillStore() throws Exception {
+        final TestSpillStore spillStore = new TestSpillStore();
+        final Holder holder = new Holder(OperationExecutionHolderConfiguration.<Op>builder()
+                .withRecordTtl(50)
+                .withSpillStore(spillStore)
+                .build());
+        final Op operation = new Op("op", 1, "running");
+        holder.create(KEY, operation);
+        holder.write(KEY, operation, "output");
+        holder.stopRunning(KEY, new Op("op", 1, "done"));
+
+        holder.evictExpired();
+        assertEquals("done", holder.getExecution("op").state);
+        assertEquals(0, spillStore.reads.get());
+
+        Thread.sleep(100);
+        holder.evictExpired();
+        assertEquals("done", holder.getExecution("op").state);
+        assertTrue(holder.readLog("op", 0).getText().startsWith("output"));
+        assertEquals(2, spillStore.reads.get());
+        assertEquals(Collections.singletonList("op"), ids(holder.getExecutionHistory(KEY)));
+    }
+
+    @Test
+    void evictsOldestCompletedExecutionsAboveBudget() throws Exception {
+        final TestSpillStore spillStore = new TestSpillStore();
+        final Holder holder = new Holder(OperationExecutionHolderConfiguration.<Op>builder()
+                .withMaxTotalLogLength(200)
+                .withSpillStore(spillStore)
+                .build());
+        for (int i = 1; i <= 3; i++) {
+            final Op operation = new Op("op-" + i, i, "running");
+            holder.create(KEY, operation);
+            holder.write(KEY, operation, repeat('x', 80));
+            if (i < 3) {
+                holder.stopRunning(KEY, new Op("op-" + i, i, "done"));
+                // completion timestamps decide the eviction order
+                Thread.sleep(5);
+            }
+        }
+
+        holder.evictExpired();
+
+        // running execution is never evicted, the oldest completed one is enough to fit the budget
+        assertEquals("running", holder.getExecution("op-3").state);
+        assertEquals("done", holder.getExecution("op-2").state);
+        assertEquals(0, spillStore.reads.get());
+        assertEquals("done", holder.getExecution("op-1").state);
+        assertEquals(1, spillStore.reads.get());
+        assertEquals(List.of("op-3", "op-2", "op-1"), ids(holder.getExecutionHistory(KEY)));
+    }
+
+    @Test
+    void completesAwaitOnStop() throws Exception {
+        final Holder holder = new Holder(OperationExecutionHolderConfiguration.<Op>builder().build());
+        holder.create(KEY, new Op("op", 1, "running"));
+        final CompletableFuture<Op> done = holder.awaitDone("OP").toCompletableFuture();
+        assertFalse(done.isDone());
+
+        holder.stopRunning(KEY, new Op("op", 1, "done"));
+
+        assertEquals("done", done.get(1, TimeUnit.SECONDS).state);
+        assertTrue(holder.isDone(KEY));
+        assertTrue(holder.awaitDone("op").toCompletableFuture().isDone());
+        assertTrue(holder.awaitDone("unknown").toCompletableFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    void failsAwaitWhenRunningExecutionIsEvicted() {
+        final Holder holder = new Holder(OperationExecutionHolderConfiguration.<Op>builder()
+                .withMaxRecordsPerKey(1)
+                .build());
+        holder.create(KEY, new Op("first", 1, "running"));
+        final CompletableFuture<Op> done = holder.awaitDone("first").toCompletableFuture();
+
+        holder.create(KEY, new Op("second", 2, "running"));
+
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> done.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertNotNull(holder.getExecution("second"));
+    }
+
+    private static List<String> ids(Iterable<Op> operations) {
+        final List<String> ids = new ArrayList<>();
+        operations.forEach(operation -> ids.add(operation.id));
+        return ids;
+    }
+
+    private static String repeat(char c, int count) {
+        final char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static final class Holder extends AbstractOperationExecutionHolder<Op> {
+
+        private Holder(OperationExecutionHolderConfiguration<Op> configuration) {
+            super(configuration);
+        }
+
+        @Override
+        protected String getOperationId(Op operation) {
+            return operation.id;
+        }
+
+        @Override
+        protected long getOperationCreationTimestamp(Op operation) {
+            return operation.created;
+        }
+
+        @Override
+        protected Op copyOperation(Op operation) {
+            return new Op(operation.id, operation.created, operation.state);
+        }
+    }
+
+    private static final class Op {
+
+        private final String id;
+        private final long created;
+        private final String state;
+
+        private Op(String id, long created, String state) {
+            this.id = id;
+            this.created = created;
+            this.state = state;
+        }
+    }
+
+    private static final class Key implements OperationKey {
+
+        private final String name;
+
+        private Key(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Keeps spilled executions on heap and counts reads, so tests can tell whether an execution was evicted
+     */
+    private static final class TestSpillStore implements IOperationSpillStore<Op> {
+
+        private final Map<String, Op> operations = new ConcurrentHashMap<>();
+        private final Map<String, OperationLogChunk> logs = new ConcurrentHashMap<>();
+        private final Map<OperationKey, List<String>> history = new ConcurrentHashMap<>();
+        private final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public void spill(OperationKey key, String operationId, Op operation, OperationLogChunk log) {
+            final String id = operationId.toLowerCase(Locale.ROOT);
+            operations.put(id, operation);
+            logs.put(id, log);
+            final List<String> ids = history.computeIfAbsent(key, k -> new ArrayList<>());
+            ids.remove(id);
+            ids.add(0, id);
+        }
+
+        @Override
+        public Op getOperation(String operationId) {
+            reads.incrementAndGet();
+            return operations.get(operationId.toLowerCase(Locale.ROOT));
+        }
+
+        @Override
+        public List<Op> getHistory(OperationKey key) {
+            final List<Op> result = new ArrayList<>();
+            history.getOrDefault(key, Collections.emptyList()).forEach(id -> result.add(operations.get(id)));
+            return result;
+        }
+
+        @Override
+        public OperationLogChunk readLog(String operationId, long fromOffset) {
+            reads.incrementAndGet();
+            return logs.get(operationId.toLowerCase(Locale.ROOT));
+        }
+    }
+}
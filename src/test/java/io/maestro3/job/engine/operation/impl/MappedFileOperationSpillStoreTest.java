@@ -0,0 +1,98 @@
+package io.maestro3.job.engine.operation.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.maestro3.job.engine.operation.OperationKey;
+import io.maestro3.job.engine.operation.OperationLogChunk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MappedFileOperationSpillStoreTest {
+
+    private static final OperationKey KEY = new Key("key");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void stopsLoadAtCorruptedRecord() throws Exception {
+        final int secondRecordPosition;
+        try (MappedFileOperationSpillStore<String> store = store(1024 * 1024, 4)) {
+            store.spill(KEY, "op-1", "first", log("log-1"));
+            store.spill(KEY, "op-2", "second", log("log-2"));
+            store.spill(KEY, "op-3", "third", log("log-3"));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("spill-00000001.seg").toFile(), "rw")) {
+            secondRecordPosition = Integer.BYTES * 2 + file.readInt();
+            // flip a byte of the second record payload, its length stays valid
+            final long corrupted = secondRecordPosition + Integer.BYTES * 2 + 10;
+            file.seek(corrupted);
+            final int value = file.read();
+            file.seek(corrupted);
+            file.write(value ^ 0xFF);
+        }
+
+        try (MappedFileOperationSpillStore<String> store = store(1024 * 1024, 4)) {
+            assertEquals("first", store.getOperation("op-1"));
+            assertNull(store.getOperation("op-2"));
+            assertNull(store.getOperation("op-3"));
+            assertEquals(Collections.singletonList("first"), store.getHistory(KEY));
+            store.spill(KEY, "op-4", "fourth", log("log-4"));
+        }
+
+        try (MappedFileOperationSpillStore<String> store = store(1024 * 1024, 4)) {
+            assertEquals(Arrays.asList("fourth", "first"), store.getHistory(KEY));
+            assertEquals("log-4", store.readLog("op-4", 0).getText());
+        }
+    }
+
+    @Test
+    void forgetsHistoryOfDroppedSegments() {
+        final OperationKey otherKey = new Key("other");
+        try (MappedFileOperationSpillStore<String> store = store(256, 2)) {
+            store.spill(KEY, "op-1", "first", log("log-1"));
+            for (int i = 0; i < 10; i++) {
+                store.spill(otherKey, "other-" + i, "other", log("log"));
+            }
+
+            assertNull(store.getOperation("op-1"));
+            assertEquals(Collections.emptyList(), store.getHistory(KEY));
+            assertEquals("other", store.getOperation("other-9"));
+        }
+    }
+
+    private MappedFileOperationSpillStore<String> store(int segmentSize, int maxSegments) {
+        return MappedFileOperationSpillStore.<String>builder()
+                .withDirectory(directory)
+                .withOperationType(new TypeReference<String>() {
+                })
+                .withSegmentSize(segmentSize)
+                .withMaxSegments(maxSegments)
+                .build();
+    }
+
+    private static OperationLogChunk log(String text) {
+        return new OperationLogChunk(text, 0, text.length(), false, true);
+    }
+
+    private static final class Key implements OperationKey {
+
+        private final String name;
+
+        private Key(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
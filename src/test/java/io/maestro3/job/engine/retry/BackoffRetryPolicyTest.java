@@ -0,0 +1,102 @@
+package io.maestro3.job.engine.retry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackoffRetryPolicyTest {
+
+    @Test
+    void fixedBackoffReturnsBaseDelay() {
+        final BackoffRetryPolicy policy = policy(BackoffType.FIXED);
+
+        assertEquals(100, policy.getDelayMillis(1, 0));
+        assertEquals(100, policy.getDelayMillis(7, 100));
+    }
+
+    @Test
+    void exponentialBackoffGrowsByMultiplierUpToMaxDelay() {
+        final BackoffRetryPolicy policy = exponentialPolicy(JitterType.NONE);
+
+        assertEquals(100, policy.getDelayMillis(1, 0));
+        assertEquals(200, policy.getDelayMillis(2, 100));
+        assertEquals(800, policy.getDelayMillis(4, 400));
+        assertEquals(1000, policy.getDelayMillis(5, 800));
+        assertEquals(1000, policy.getDelayMillis(Integer.MAX_VALUE, 1000));
+    }
+
+    @Test
+    void exponentialBackoffUsesEqualJitterByDefault() {
+        final BackoffRetryPolicy policy = policy(BackoffType.EXPONENTIAL);
+
+        final Set<Long> delays = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            final long delay = policy.getDelayMillis(4, 400);
+            assertTrue(delay >= 400 && delay <= 800, "delay " + delay + " is out of [400, 800]");
+            delays.add(delay);
+        }
+        assertTrue(delays.size() > 1, "delay is not randomized");
+        assertTrue(policy.getDelayMillis(Integer.MAX_VALUE, 1000) >= 500);
+    }
+
+    @Test
+    void exponentialBackoffWithFullJitterStaysBelowExponentialDelay() {
+        final BackoffRetryPolicy policy = exponentialPolicy(JitterType.FULL);
+
+        long total = 0;
+        for (int i = 0; i < 1000; i++) {
+            final long delay = policy.getDelayMillis(4, 400);
+            assertTrue(delay >= 0 && delay <= 800, "delay " + delay + " is out of [0, 800]");
+            total += delay;
+        }
+        // mean of full jitter is half of the exponential delay
+        assertTrue(Math.abs(total / 1000.0 - 400) < 50, "mean delay " + total / 1000.0);
+    }
+
+    @Test
+    void decorrelatedJitterStaysWithinBounds() {
+        final BackoffRetryPolicy policy = policy(BackoffType.DECORRELATED_JITTER);
+
+        long previousDelay = 0;
+        for (int attempt = 1; attempt <= 1000; attempt++) {
+            final long delay = policy.getDelayMillis(attempt, previousDelay);
+            assertTrue(delay >= 100, "delay " + delay + " is below base delay");
+            assertTrue(delay <= 1000, "delay " + delay + " exceeds max delay");
+            assertTrue(delay <= Math.max(previousDelay, 100) * 3, "delay " + delay + " exceeds three times previous delay");
+            previousDelay = delay;
+        }
+    }
+
+    @Test
+    void builderRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> BackoffRetryPolicy.builder().build());
+        assertThrows(IllegalArgumentException.class, () -> BackoffRetryPolicy.builder()
+                .withMaxAttempts(3).withBaseDelayMillis(100).withMaxDelayMillis(50).build());
+        assertThrows(IllegalArgumentException.class, () -> BackoffRetryPolicy.builder()
+                .withMaxAttempts(3).withMultiplier(0.5).build());
+    }
+
+    private static BackoffRetryPolicy exponentialPolicy(JitterType jitterType) {
+        return BackoffRetryPolicy.builder()
+                .withBackoffType(BackoffType.EXPONENTIAL)
+                .withJitter(jitterType)
+                .withBaseDelayMillis(100)
+                .withMaxDelayMillis(1000)
+                .withMaxAttempts(5)
+                .build();
+    }
+
+    private static BackoffRetryPolicy policy(BackoffType backoffType) {
+        return BackoffRetryPolicy.builder()
+                .withBackoffType(backoffType)
+                .withBaseDelayMillis(100)
+                .withMaxDelayMillis(1000)
+                .withMaxAttempts(5)
+                .build();
+    }
+}
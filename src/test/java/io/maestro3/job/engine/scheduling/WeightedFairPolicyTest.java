@@ -0,0 +1,101 @@
+package io.maestro3.job.engine.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeightedFairPolicyTest {
+
+    @Test
+    void sharesConvergeToWeights() {
+        final WeightedFairPolicy policy = WeightedFairPolicy.builder()
+                .withWeight("a", 5)
+                .withWeight("b", 2)
+                .build();
+        final Set<String> types = new HashSet<>(Arrays.asList("a", "b", "c"));
+
+        final Map<String, Integer> claimed = claim(policy, types, 1, 800);
+
+        assertShare(5.0 / 8, claimed.get("a"), 800);
+        assertShare(2.0 / 8, claimed.get("b"), 800);
+        assertShare(1.0 / 8, claimed.get("c"), 800);
+    }
+
+    @Test
+    void idleTypeDoesNotSaveCredit() {
+        final WeightedFairPolicy policy = WeightedFairPolicy.builder().build();
+        claim(policy, new HashSet<>(Arrays.asList("a", "b")), 4, 100);
+
+        // c was idle for 400 claims, it gets an equal share from now on instead of catching up
+        final Map<String, Integer> claimed = claim(policy, new HashSet<>(Arrays.asList("a", "b", "c")), 3, 10);
+
+        // a type with saved credit would take every slot of these 10 rounds
+        for (final String type : Arrays.asList("a", "b", "c")) {
+            final int count = claimed.get(type);
+            assertTrue(count >= 9 && count <= 11, type + " claimed " + count);
+        }
+    }
+
+    @Test
+    void offersUnusedSlotsToAllTypes() {
+        final WeightedFairPolicy policy = WeightedFairPolicy.builder()
+                .withPriorityAging(60_000)
+                .build();
+        final Set<String> types = new HashSet<>(Arrays.asList("a", "b"));
+
+        final List<ClaimPlan> plans = policy.plan(types, 4);
+
+        final ClaimPlan last = plans.get(plans.size() - 1);
+        assertEquals(types, last.getProcessorTypes());
+        assertEquals(4, last.getLimit());
+        assertEquals(4, plans.subList(0, plans.size() - 1).stream().mapToInt(ClaimPlan::getLimit).sum());
+        plans.forEach(plan -> assertEquals(60_000, plan.getAgingIntervalMillis()));
+    }
+
+    @Test
+    void agingPolicyClaimsAllTypesByAgedPriority() {
+        final Set<String> types = new HashSet<>(Arrays.asList("a", "b"));
+
+        final List<ClaimPlan> plans = new PriorityAgingPolicy(60_000).plan(types, 4);
+
+        assertEquals(1, plans.size());
+        assertEquals(types, plans.get(0).getProcessorTypes());
+        assertTrue(plans.get(0).isSortByPriority());
+        assertEquals(60_000, plans.get(0).getAgingIntervalMillis());
+    }
+
+    /**
+     * Every type always has jobs, so each per-type plan is claimed in full and the last plan gets nothing
+     */
+    private static Map<String, Integer> claim(WeightedFairPolicy policy, Set<String> types, int slots, int rounds) {
+        final Map<String, Integer> claimed = new HashMap<>();
+        for (int round = 0; round < rounds; round++) {
+            int free = slots;
+            for (final ClaimPlan plan : policy.plan(types, slots)) {
+                if (free == 0) {
+                    break;
+                }
+                assertEquals(1, plan.getProcessorTypes().size());
+                final String type = plan.getProcessorTypes().iterator().next();
+                final int count = Math.min(plan.getLimit(), free);
+                policy.onJobsClaimed(type, count);
+                claimed.merge(type, count, Integer::sum);
+                free -= count;
+            }
+        }
+        return claimed;
+    }
+
+    private static void assertShare(double expected, int claimed, int total) {
+        final double share = (double) claimed / total;
+        assertTrue(Math.abs(share - expected) <= 0.01, "share " + share + " expected " + expected);
+    }
+}
@@ -0,0 +1,176 @@
+package io.maestro3.job.engine.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.maestro3.job.engine.TestJob;
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.JobStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileDbJobServiceTest {
+
+    private static final String LOG_FILE = "jobs.wal";
+    private static final String SNAPSHOT_FILE = "jobs.snapshot";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysSavedAndDeletedJobs() {
+        try (FileDbJobService<Void> store = open()) {
+            store.saveJob(new TestJob("pending", "a"));
+            final TestJob executed = new TestJob("executed", "a");
+            executed.setStatus(JobStatus.SUCCESS);
+            executed.setProcessedDate(new Date(0));
+            store.saveJob(executed);
+            final TestJob deleted = new TestJob("deleted", "a");
+            deleted.setStatus(JobStatus.SUCCESS);
+            deleted.setProcessedDate(new Date(0));
+            store.saveJob(deleted);
+            assertEquals(1, store.deleteExecutedJobs(Collections.singletonList("deleted")));
+        }
+
+        try (FileDbJobService<Void> store = open()) {
+            assertEquals(2, store.size());
+            assertEquals(JobStatus.PENDING, store.getJob("pending").getStatus());
+            assertEquals(JobStatus.SUCCESS, store.getJob("executed").getStatus());
+            assertNull(store.getJob("deleted"));
+        }
+    }
+
+    @Test
+    void loadsProcessingJobsAsPending() {
+        try (FileDbJobService<Void> store = open()) {
+            final TestJob job = new TestJob("job", "a");
+            job.setStatus(JobStatus.PROCESSING);
+            job.setOwnerId("node");
+            job.setLeaseExpiryDate(new Date());
+            store.saveJob(job);
+        }
+
+        try (FileDbJobService<Void> store = open()) {
+            final IJob<Void> job = store.getJob("job");
+            assertEquals(JobStatus.PENDING, job.getStatus());
+            assertNull(job.getOwnerId());
+            assertEquals("job", store.getNextJobForRun(Set.of("a"), false, false).getId());
+        }
+    }
+
+    @Test
+    void dropsTornTailAndAppendsAfterIt() throws IOException {
+        final long validLength = writeJobs("first", "second");
+        // header of a record whose body was never written
+        append(new byte[]{0, 0, 0, 50, 1, 2, 3, 4, 1, '{'});
+
+        try (FileDbJobService<Void> store = open()) {
+            assertEquals(2, store.size());
+            assertEquals(validLength, Files.size(directory.resolve(LOG_FILE)));
+            store.saveJob(new TestJob("third", "a"));
+        }
+
+        try (FileDbJobService<Void> store = open()) {
+            assertEquals(3, store.size());
+            assertNotNull(store.getJob("third"));
+        }
+    }
+
+    @Test
+    void treatsCorruptedLengthAsTornTail() throws IOException {
+        final long validLength = writeJobs("first");
+        // length close to Integer.MAX_VALUE must not be allocated
+        append(new byte[]{0x7f, (byte) 0xff, (byte) 0xff, 0x00, 1, 2, 3, 4, 1, '{'});
+
+        try (FileDbJobService<Void> store = open()) {
+            assertEquals(1, store.size());
+            assertEquals(validLength, Files.size(directory.resolve(LOG_FILE)));
+        }
+    }
+
+    @Test
+    void stopsReplayAtChecksumMismatch() throws IOException {
+        writeJobs("first");
+        final long firstLength = Files.size(directory.resolve(LOG_FILE));
+        writeJobs("second");
+        try (FileChannel channel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.WRITE)) {
+            // flip the last byte of the second record
+            final long lastByte = channel.size() - 1;
+            channel.write(ByteBuffer.wrap(new byte[]{'#'}), lastByte);
+        }
+
+        try (FileDbJobService<Void> store = open()) {
+            assertEquals(1, store.size());
+            assertNotNull(store.getJob("first"));
+            assertEquals(firstLength, Files.size(directory.resolve(LOG_FILE)));
+        }
+    }
+
+    @Test
+    void replaysLogOverSnapshotAfterCompaction() throws Exception {
+        try (FileDbJobService<Void> store = open()) {
+            for (int i = 0; i < 10; i++) {
+                final TestJob job = new TestJob("executed-" + i, "a");
+                job.setStatus(JobStatus.SUCCESS);
+                job.setProcessedDate(new Date(0));
+                store.saveJob(job);
+            }
+            store.saveJob(new TestJob("kept", "a"));
+            assertEquals(10, store.deleteExecutedJobs(1));
+            awaitCompaction();
+            store.saveJob(new TestJob("after-compaction", "a"));
+        }
+
+        assertTrue(Files.exists(directory.resolve(SNAPSHOT_FILE)));
+        try (FileDbJobService<Void> store = open()) {
+            assertEquals(2, store.size());
+            assertNotNull(store.getJob("kept"));
+            assertNotNull(store.getJob("after-compaction"));
+        }
+    }
+
+    private long writeJobs(String... jobIds) throws IOException {
+        try (FileDbJobService<Void> store = open()) {
+            for (final String jobId : jobIds) {
+                store.saveJob(new TestJob(jobId, "a"));
+            }
+        }
+        return Files.size(directory.resolve(LOG_FILE));
+    }
+
+    private void append(byte[] data) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(data));
+        }
+    }
+
+    private void awaitCompaction() throws Exception {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (!Files.exists(directory.resolve(SNAPSHOT_FILE)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(Files.exists(directory.resolve(SNAPSHOT_FILE)), "log is not compacted");
+    }
+
+    private FileDbJobService<Void> open() {
+        return FileDbJobService.<Void>builder()
+                .withDirectory(directory)
+                .withJobType(new TypeReference<TestJob>() {
+                })
+                .withCompactionMinRecords(1)
+                .build();
+    }
+}
@@ -0,0 +1,206 @@
+package io.maestro3.job.engine.store;
+
+import io.maestro3.job.engine.JobClaimRequest;
+import io.maestro3.job.engine.TestJob;
+import io.maestro3.job.engine.model.IJob;
+import io.maestro3.job.engine.model.JobStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryDbJobServiceTest {
+
+    private static final String JOB_TYPE = "a";
+    private static final Set<String> JOB_TYPES = Collections.singleton(JOB_TYPE);
+
+    @Test
+    void concurrentClaimsNeverReturnSameJob() throws Exception {
+        final int jobCount = 5000;
+        final int claimers = 8;
+        final InMemoryDbJobService<Void> jobService = new InMemoryDbJobService<>();
+        for (int i = 0; i < jobCount; i++) {
+            final TestJob job = new TestJob("job-" + i, JOB_TYPE);
+            job.setPriority(i % 3);
+            jobService.saveJob(job);
+        }
+
+        final Set<String> claimedIds = ConcurrentHashMap.newKeySet();
+        final AtomicInteger claimedJobs = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(claimers);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < claimers; i++) {
+                final boolean sortByPriority = i % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<IJob<Void>> jobs;
+                    while (!(jobs = jobService.claimJobs(request(7).withSortByPriority(sortByPriority).build())).isEmpty()) {
+                        claimedJobs.addAndGet(jobs.size());
+                        jobs.forEach(job -> claimedIds.add(job.getId()));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(jobCount, claimedJobs.get());
+        assertEquals(jobCount, claimedIds.size());
+        assertEquals(JobStatus.PROCESSING, jobService.getJob("job-0").getStatus());
+    }
+
+    @Test
+    void promotesPostponedJobWhenDue() throws Exception {
+        final InMemoryDbJobService<Void> jobService = new InMemoryDbJobService<>();
+        final TestJob job = new TestJob("postponed", JOB_TYPE);
+        job.setStatus(JobStatus.POSTPONED);
+        job.setDate(new Date(System.currentTimeMillis() + 200));
+        jobService.saveJob(job);
+
+        assertTrue(jobService.claimJobs(request(1).build()).isEmpty());
+
+        final long deadline = System.currentTimeMillis() + 5_000;
+        List<IJob<Void>> claimed = Collections.emptyList();
+        while (claimed.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            claimed = jobService.claimJobs(request(1).build());
+        }
+        assertEquals(Collections.singletonList("postponed"), ids(claimed));
+        assertTrue(System.currentTimeMillis() >= job.getDate().getTime());
+    }
+
+    @Test
+    void claimsByPriorityThenDate() {
+        final InMemoryDbJobService<Void> jobService = new InMemoryDbJobService<>();
+        final long now = System.currentTimeMillis();
+        jobService.saveJob(job("low-old", 0, now - 3_000));
+        jobService.saveJob(job("high-new", 5, now - 1_000));
+        jobService.saveJob(job("high-old", 5, now - 2_000));
+        jobService.saveJob(job("low-new", 0, now));
+
+        final List<IJob<Void>> claimed = jobService.claimJobs(request(4).withSortByPriority(true).build());
+
+        assertEquals(Arrays.asList("high-old", "high-new", "low-old", "low-new"), ids(claimed));
+    }
+
+    @Test
+    void claimsByDateWithoutPriority() {
+        final InMemoryDbJobService<Void> jobService = new InMemoryDbJobService<>();
+        final long now = System.currentTimeMillis();
+        jobService.saveJob(job("high-new", 5, now));
+        jobService.saveJob(job("low-old", 0, now - 1_000));
+
+        assertEquals(Arrays.asList("low-old", "high-new"), ids(jobService.claimJobs(request(2).build())));
+    }
+
+    @Test
+    void agingRaisesPriorityOfWaitingJobs() {
+        final InMemoryDbJobService<Void> jobService = new InMemoryDbJobService<>();
+        final long now = System.currentTimeMillis();
+        // waited 10 intervals, effective priority 10 beats 5 of the new job
+        jobService.saveJob(job("low-aged", 0, now - TimeUnit.MINUTES.toMillis(10)));
+        jobService.saveJob(job("high-new", 5, now));
+        jobService.saveJob(job("low-new", 0, now));
+
+        final List<IJob<Void>> claimed = jobService.claimJobs(request(3)
+                .withSortByPriority(true)
+                .withAgingIntervalMillis(TimeUnit.MINUTES.toMillis(1))
+                .build());
+
+        assertEquals(Arrays.asList("low-aged", "high-new", "low-new"), ids(claimed));
+    }
+
+    @Test
+    void claimsOnlyRequestedPartitions() {
+        final InMemoryDbJobService<Void> jobService = new InMemoryDbJobService<>();
+        for (int partition = 0; partition < 4; partition++) {
+            final TestJob job = new TestJob("job-" + partition, JOB_TYPE);
+            job.setPartition(partition);
+            jobService.saveJob(job);
+        }
+
+        final List<IJob<Void>> claimed = jobService.claimJobs(request(4)
+                .withPartitions(new HashSet<>(Arrays.asList(1, 3)))
+                .build());
+
+        assertEquals(Arrays.asList("job-1", "job-3"), ids(claimed).stream().sorted().collect(Collectors.toList()));
+        assertEquals(JobStatus.PENDING, jobService.getJob("job-0").getStatus());
+        assertEquals(JobStatus.PENDING, jobService.getJob("job-2").getStatus());
+    }
+
+    @Test
+    void findsAndDeletesExecutedJobs() {
+        final InMemoryDbJobService<Void> jobService = new InMemoryDbJobService<>();
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            jobService.saveJob(executedJob("old-" + i, now - TimeUnit.DAYS.toMillis(10) + i));
+        }
+        jobService.saveJob(executedJob("recent", now));
+        jobService.saveJob(new TestJob("pending", JOB_TYPE));
+
+        final Date cutoff = new Date(now - TimeUnit.DAYS.toMillis(1));
+        final List<IJob<Void>> firstChunk = jobService.findExecutedJobs(cutoff, 3);
+        assertEquals(Arrays.asList("old-0", "old-1", "old-2"), ids(firstChunk));
+
+        assertEquals(3, jobService.deleteExecutedJobs(ids(firstChunk)));
+        // pending job is not executed and is never deleted
+        assertEquals(0, jobService.deleteExecutedJobs(Collections.singletonList("pending")));
+        assertEquals(Arrays.asList("old-3", "old-4"), ids(jobService.findExecutedJobs(cutoff, 3)));
+
+        assertEquals(2, jobService.deleteExecutedJobs(1));
+        assertTrue(jobService.findExecutedJobs(cutoff, 3).isEmpty());
+        assertNull(jobService.getJob("old-4"));
+        assertNotNull(jobService.getJob("recent"));
+        assertNotNull(jobService.getJob("pending"));
+        assertEquals(2, jobService.size());
+    }
+
+    private static JobClaimRequest.Builder request(int limit) {
+        return JobClaimRequest.builder()
+                .withProcessorTypes(JOB_TYPES)
+                .withLimit(limit);
+    }
+
+    private static TestJob job(String jobId, int priority, long date) {
+        final TestJob job = new TestJob(jobId, JOB_TYPE);
+        job.setPriority(priority);
+        job.setDate(new Date(date));
+        return job;
+    }
+
+    private static TestJob executedJob(String jobId, long processedDate) {
+        final TestJob job = new TestJob(jobId, JOB_TYPE);
+        job.setStatus(JobStatus.SUCCESS);
+        job.setProcessedDate(new Date(processedDate));
+        return job;
+    }
+
+    private static List<String> ids(List<IJob<Void>> jobs) {
+        return jobs.stream().map(IJob::getId).collect(Collectors.toList());
+    }
+}